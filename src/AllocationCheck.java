@@ -0,0 +1,345 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Fails when a steady-state gameplay frame allocates.
+ *
+ * Plays the game headless with scripted input: running, jumping, dying on
+ * spikes and rewinding, with particles and the profiler overlay on, and with
+ * what the game attaches when it is played: ghosts to race, an input
+ * recorder and a leaderboard, all in a temporary directory. Every stage
+ * starts with a seeded ghost. Every frame ticks the game once and renders
+ * it through a renderer that discards the drawing, so what is measured is
+ * the game's own frame code, not a drawing backend. A clean check does not
+ * make the default StdDraw path allocation-free: StdDrawRenderer copies every
+ * HUD text into a String, where the Java2D renderer draws it from the buffer.
+ *
+ * The frames are measured with the JVM's optimizing compiler switched off,
+ * and the check starts a JVM set up that way when it is run in another.
+ * Before that compiler is given a method, HotSpot interns every string
+ * literal of the method's class on the thread that ran the method, which
+ * shows up as a stray allocation in whichever frame that happens to be. The
+ * first-tier compiler does no escape analysis either, so an object the
+ * frame code creates is counted even where the optimizing compiler would
+ * have removed it. After a warm-up the game is reset, so the ghosts race
+ * through the whole measurement, and the thread allocation counter of the
+ * JVM is read around each frame of one pass. Frames that change the stage
+ * or the game state build new objects on purpose and are not counted. Any
+ * other frame that allocates fails the check with status 1, and the first
+ * offending frames are listed. Status 2 means the JVM cannot count
+ * allocations.
+ *
+ * Usage: java AllocationCheck
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * Allocation regression check for the frame loop.
+ */
+public class AllocationCheck {
+    private static final int WARMUP_FRAMES = 20_000;
+    private static final int MEASURED_FRAMES = 20_000;
+    private static final int REPORTED_FRAMES = 10;
+
+    /**
+     * Renderer that draws nothing, standing in for the screen.
+     */
+    private static class DiscardingRenderer implements Renderer {
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public void show() {
+        }
+
+        @Override
+        public void setPenColor(java.awt.Color color) {
+        }
+
+        @Override
+        public void setFont(java.awt.Font font) {
+        }
+
+        @Override
+        public void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
+        }
+
+        @Override
+        public void rectangle(double x, double y, double halfWidth, double halfHeight) {
+        }
+
+        @Override
+        public void filledSquare(double x, double y, double halfLength) {
+        }
+
+        @Override
+        public void text(double x, double y, String text) {
+        }
+
+        @Override
+        public void textLeft(double x, double y, String text) {
+        }
+
+        @Override
+        public void text(double x, double y, TextBuffer text) {
+        }
+
+        @Override
+        public void textLeft(double x, double y, TextBuffer text) {
+        }
+
+        @Override
+        public void picture(double x, double y, Sprite sprite) {
+        }
+
+        @Override
+        public void prepare(Sprite sprite) {
+        }
+    }
+
+    private final File directory;
+    private final Game game;
+    private final GhostRace race;
+    private final InputRecorder recorder;
+    private final Leaderboard leaderboard;
+    private final Renderer renderer = new DiscardingRenderer();
+    private final FrameProfiler profiler = new FrameProfiler();
+    private long seed = 0x9E3779B97F4A7C15L;
+    private int inputs = 0;
+    private int holdTicks = 0;
+
+    /**
+     * Sets up a game with particles, the profiler overlay, the discarding renderer, and ghosts,
+     * a recorder and a leaderboard in a new temporary directory.
+     *
+     * @throws IOException If the temporary files cannot be written
+     */
+    public AllocationCheck() throws IOException {
+        directory = Files.createTempDirectory("allocation-check").toFile();
+        ArrayList<Stage> stages = DevinIsler.createStages();
+        File ghosts = new File(directory, "ghosts");
+        seedGhosts(ghosts.getPath(), stages);
+
+        // An input queue that is never installed gives the game its particles but no live input
+        game = new Game(stages, new InputQueue(800, 600));
+        game.setRenderer(renderer);
+        profiler.setOverlayVisible(true);
+        game.setProfiler(profiler);
+        race = new GhostRace(ghosts.getPath(), "check");
+        game.setGhosts(race);
+        recorder = new InputRecorder(OutputStream.nullOutputStream(), stages, Game.TICKS_PER_SECOND);
+        leaderboard = Leaderboard.open(new File(directory, "leaderboard").getPath());
+        game.setLeaderboard(leaderboard, "check");
+        game.loadAssets();
+    }
+
+    /**
+     * Saves a ghost of the longest traceable attempt for every stage, walking back and forth
+     * at the spawn height, so a ghost races for as long as a stage is played.
+     *
+     * @param ghosts Directory of the ghosts
+     * @param stages The stages of the game
+     */
+    private static void seedGhosts(String ghosts, ArrayList<Stage> stages) {
+        Level level = Level.getDefault();
+        Player walker = new Player(level.getSpawnX(), level.getSpawnY());
+        GhostRace race = new GhostRace(ghosts, "seed");
+        for (Stage stage : stages) {
+            race.startStage(stage);
+            for (int t = 0; t < GhostTrace.MAX_TICKS; t++) {
+                int step = t % 1200;
+                walker.setX(100 + Math.abs(step - 600));
+                walker.setFacing(step < 600 ? Player.FACING_LEFT : Player.FACING_RIGHT);
+                race.tick(walker);
+            }
+            race.finishStage();
+        }
+    }
+
+    /**
+     * Runs one frame the way the main loop does, recording the input of its tick.
+     *
+     * @param alpha Fraction of the next tick that has elapsed
+     */
+    private void frame(double alpha) {
+        profiler.beginFrame();
+        int tickInputs = nextInputs();
+        recorder.record(tickInputs);
+        game.tick(tickInputs);
+        renderer.clear();
+        game.render(alpha);
+        profiler.drawOverlay(renderer);
+        profiler.enter(FrameProfiler.SHOW);
+        renderer.show();
+        profiler.endFrame();
+    }
+
+    /**
+     * Returns the scripted input of the next tick: a random mix of the movement keys and
+     * rewinding, each held for a random number of ticks.
+     *
+     * @return Bitmask of movement and action bits
+     */
+    private int nextInputs() {
+        if (holdTicks-- <= 0) {
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            int roll = (int) (seed >>> 40);
+            inputs = roll & (Map.INPUT_RIGHT | Map.INPUT_LEFT | Map.INPUT_UP);
+            if ((roll & 0xF00) == 0) {
+                inputs = Game.ACTION_REWIND;
+            }
+            holdTicks = 5 + ((roll >>> 12) & 31);
+        }
+        return inputs;
+    }
+
+    /**
+     * Warms up, restarts the game and measures one pass.
+     *
+     * @param threads Allocation counter of the JVM
+     * @return Whether no measured frame allocated
+     */
+    public boolean run(com.sun.management.ThreadMXBean threads) {
+        for (int n = 0; n < WARMUP_FRAMES; n++) {
+            frame((n % 4) / 4.0);
+        }
+        game.resetGame();
+        return measure(threads) == 0;
+    }
+
+    /**
+     * Measures the allocation of every frame of the pass.
+     *
+     * @param threads Allocation counter of the JVM
+     * @return Number of measured frames that allocated
+     */
+    private int measure(com.sun.management.ThreadMXBean threads) {
+        int failures = 0;
+        int counted = 0;
+        long worst = 0;
+        for (int n = 0; n < MEASURED_FRAMES; n++) {
+            int stage = game.getStageIndex();
+            GameState state = game.getState();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            frame((n % 4) / 4.0);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            if (stage != game.getStageIndex() || state != game.getState()) {
+                continue;
+            }
+            counted++;
+            if (allocated > 0) {
+                if (failures < REPORTED_FRAMES) {
+                    System.out.printf("frame %d allocated %d bytes%n", n, allocated);
+                }
+                failures++;
+                worst = Math.max(worst, allocated);
+            }
+        }
+        System.out.printf("%d of %d frames allocated, at most %d bytes, %d deaths, %d ghosts%n",
+                failures, counted, worst, game.getDeathCount(), race.getGhostCount());
+        return failures;
+    }
+
+    /**
+     * Closes the recorder and the leaderboard and deletes the temporary directory.
+     *
+     * @throws IOException If a file cannot be deleted
+     */
+    public void close() throws IOException {
+        recorder.close();
+        leaderboard.close();
+        delete(directory);
+    }
+
+    /**
+     * Deletes a file, or a directory with everything in it.
+     *
+     * @param file The file or directory
+     * @throws IOException If something cannot be deleted
+     */
+    private static void delete(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        Files.delete(file.toPath());
+    }
+
+    /**
+     * Returns whether this JVM compiles with the first-tier compiler only.
+     *
+     * @return true if the optimizing compiler is off, or the JVM has no such setting
+     */
+    private static boolean isFirstTierOnly() {
+        com.sun.management.HotSpotDiagnosticMXBean hotSpot =
+                ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+        try {
+            return hotSpot == null || (hotSpot.getVMOption("TieredCompilation").getValue().equals("true")
+                    && hotSpot.getVMOption("TieredStopAtLevel").getValue().equals("1"));
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Runs the check in a new JVM with the same arguments and the optimizing compiler off.
+     *
+     * @return The exit status of the new JVM
+     * @throws IOException If the JVM cannot be started
+     * @throws InterruptedException If interrupted while waiting for it
+     */
+    private static int runFirstTierOnly() throws IOException, InterruptedException {
+        ArrayList<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-XX:+TieredCompilation");
+        command.add("-XX:TieredStopAtLevel=1");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(AllocationCheck.class.getName());
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+
+    /**
+     * Runs the check and sets the exit status.
+     *
+     * @param args Unused
+     * @throws IOException If the temporary files cannot be written or deleted, or the JVM
+     *                     for the check cannot be started
+     * @throws InterruptedException If interrupted while waiting for the JVM of the check
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (!isFirstTierOnly()) {
+            System.exit(runFirstTierOnly());
+        }
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            System.out.println("Allocation counting is not supported by this JVM");
+            System.exit(2);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        AllocationCheck check = new AllocationCheck();
+        boolean clean = check.run(threads);
+        check.close();
+        System.exit(clean ? 0 : 1);
+    }
+}
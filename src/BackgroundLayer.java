@@ -0,0 +1,208 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Cached static layers of a stage.
+ *
+ * Obstacles, spikes, the button floor and the pipes never change during a
+ * stage, so they are rendered once per stage into offscreen images and
+ * blitted every frame. The back layer sits behind the door and the button,
+ * the front layer (button floor and pipes) is drawn over the player so the
+ * elephant still disappears into the pipes. A renderer that shows the world
+ * larger renders both layers again at its scale once per resize, so edges
+ * stay sharp instead of being stretched from the native size.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+
+/**
+ * Renders and caches the static background of each stage.
+ */
+public class BackgroundLayer {
+    private static final HashMap<Stage, BackgroundLayer> cache = new HashMap<>();
+
+    // File paths
+    private static final String spikeFile = "./misc/Spikes.png";
+
+    private final double centerX;
+    private final double centerY;
+    private final Sprite back;
+    private final Sprite front;
+
+    /**
+     * Renders both layers of the stage.
+     *
+     * @param stage The stage providing the obstacle color
+     * @param level The level geometry to render
+     */
+    private BackgroundLayer(Stage stage, Level level) {
+        this.centerX = level.getWidth() / 2.0;
+        this.centerY = level.getHeight() / 2.0;
+        this.back = new Sprite(renderBack(stage, level, 1), scale -> renderBack(stage, level, scale));
+        this.front = new Sprite(renderFront(level, 1), scale -> renderFront(level, scale));
+    }
+
+    /**
+     * Renders the obstacles and spikes of the stage.
+     *
+     * @param stage The stage providing the obstacle color
+     * @param level The level geometry to render
+     * @param scale Pixels per world unit
+     * @return The rendered layer
+     */
+    private static BufferedImage renderBack(Stage stage, Level level, double scale) {
+        BufferedImage image = createImage(level, scale);
+        Graphics2D graphics = createGraphics(image);
+        graphics.setColor(stage.getColor());
+        fillRects(graphics, level.getObstacles(), level.getHeight(), scale);
+        drawSpikes(graphics, level, scale);
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Renders the button floor and the pipes.
+     *
+     * @param level The level geometry to render
+     * @param scale Pixels per world unit
+     * @return The rendered layer
+     */
+    private static BufferedImage renderFront(Level level, double scale) {
+        BufferedImage image = createImage(level, scale);
+        Graphics2D graphics = createGraphics(image);
+        graphics.setColor(Color.DARK_GRAY);
+        fillRects(graphics, level.getButtonFloor(), level.getHeight(), scale);
+        graphics.setColor(Color.ORANGE);
+        fillRects(graphics, level.getStartPipe(), level.getHeight(), scale);
+        fillRects(graphics, level.getExitPipe(), level.getHeight(), scale);
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Returns the cached layers of the stage, rendering them on first use.
+     *
+     * @param stage The stage to render
+     * @param level The level geometry to render
+     * @return The cached layers
+     */
+    public static BackgroundLayer forStage(Stage stage, Level level) {
+        BackgroundLayer layer = cache.get(stage);
+        if (layer == null) {
+            layer = new BackgroundLayer(stage, level);
+            cache.put(stage, layer);
+        }
+        return layer;
+    }
+
+    /**
+     * Prepares both layers for their first draw.
+     *
+     * @param renderer Target of the frames
+     */
+    public void prepare(Renderer renderer) {
+        renderer.prepare(back);
+        renderer.prepare(front);
+    }
+
+    /**
+     * Draws the obstacles and spikes.
+     *
+     * @param renderer Target of the frame
+     */
+    public void drawBack(Renderer renderer) {
+        back.draw(renderer, centerX, centerY);
+    }
+
+    /**
+     * Draws the button floor and the pipes.
+     *
+     * @param renderer Target of the frame
+     */
+    public void drawFront(Renderer renderer) {
+        front.draw(renderer, centerX, centerY);
+    }
+
+    /**
+     * Creates a transparent image covering the whole level.
+     *
+     * @param level The level to cover
+     * @param scale Pixels per world unit
+     * @return The empty image
+     */
+    private static BufferedImage createImage(Level level, double scale) {
+        return new BufferedImage(Math.max(1, (int) Math.round(level.getWidth() * scale)),
+                Math.max(1, (int) Math.round(level.getHeight() * scale)), BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Creates an antialiased graphics context, matching how StdDraw draws.
+     *
+     * @param image The image to draw into
+     * @return The graphics context
+     */
+    private static Graphics2D createGraphics(BufferedImage image) {
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        return graphics;
+    }
+
+    /**
+     * Fills every rectangle of the set. World y grows upwards, image y grows downwards.
+     *
+     * @param graphics The graphics context
+     * @param rects Rectangles to fill
+     * @param height Height of the level
+     * @param scale Pixels per world unit
+     */
+    private static void fillRects(Graphics2D graphics, RectArray rects, int height, double scale) {
+        for (int i = 0; i < rects.size(); i++) {
+            graphics.fill(new Rectangle2D.Double(rects.minX(i) * scale, (height - rects.maxY(i)) * scale,
+                    (rects.maxX(i) - rects.minX(i)) * scale, (rects.maxY(i) - rects.minY(i)) * scale));
+        }
+    }
+
+    /**
+     * Draws all spikes using their pre-rotated sprites.
+     *
+     * @param graphics The graphics context
+     * @param level The level containing the spikes
+     * @param scale Pixels per world unit
+     */
+    private static void drawSpikes(Graphics2D graphics, Level level, double scale) {
+        RectArray spikes = level.getSpikes();
+
+        for (int i = 0; i < spikes.size(); i++) {
+            BufferedImage spike = getSpikeSprite(level, i).render(scale);
+            double x = spikes.centerX(i) * scale;
+            double y = (level.getHeight() - spikes.centerY(i)) * scale;
+            graphics.drawImage(spike, (int) Math.round(x - spike.getWidth() / 2.0),
+                    (int) Math.round(y - spike.getHeight() / 2.0), null);
+        }
+    }
+
+    /**
+     * Returns the prepared sprite of a spike, sized and rotated to its area.
+     *
+     * @param level The level containing the spikes
+     * @param i Spike index
+     * @return The spike sprite
+     */
+    private static Sprite getSpikeSprite(Level level, int i) {
+        RectArray spikes = level.getSpikes();
+        double angle = level.getSpikeAngle(i);
+
+        // Wall spikes are rotated sideways, so the image width runs along the wall
+        if (angle == 90.0 || angle == 270.0) {
+            return SpriteCache.get(spikeFile, spikes.halfHeight(i) * 2, spikes.halfWidth(i) * 2, angle);
+        }
+        return SpriteCache.get(spikeFile, spikes.halfWidth(i) * 2, spikes.halfHeight(i) * 2, angle);
+    }
+}
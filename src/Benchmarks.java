@@ -0,0 +1,340 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Micro-benchmarks for the hot paths of the game.
+ *
+ * Covers the collision checks of Map, one physics tick, one tick of 800
+ * moving entities, one tick of 4000 particles, one offscreen frame render
+ * and a full replay of all five stages. Every benchmark is calibrated to a
+ * batch size, warmed up, then measured over several fixed-length iterations.
+ * Besides the time per operation, the bytes allocated per operation are read
+ * from the thread allocation counter of the JVM, so an allocation creeping
+ * into the hot path shows up as a number.
+ *
+ * The render benchmark needs a display and is skipped on headless machines.
+ *
+ * Usage: java Benchmarks [name filter...]
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.awt.GraphicsEnvironment;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Self-contained benchmark harness reporting time and allocation per operation.
+ */
+public class Benchmarks {
+    private static final long CALIBRATION_NANOS = 10_000_000L;
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long ITERATION_NANOS = 1_000_000_000L;
+    private static final int ITERATIONS = 5;
+
+    private static volatile double sink;  // Keeps results alive so the JIT cannot drop the work
+
+    /**
+     * A benchmarked operation, run count times per call to keep the harness overhead out of the numbers.
+     */
+    private interface Operation {
+        /**
+         * @param count Number of operations to run
+         * @return A value depending on the work, consumed by the harness
+         * @throws Exception If the operation fails
+         */
+        double run(int count) throws Exception;
+    }
+
+    private final String[] filters;
+    private final com.sun.management.ThreadMXBean threads;
+
+    /**
+     * Constructs the harness.
+     *
+     * @param filters Only benchmarks whose name contains one of these run, all if empty
+     */
+    public Benchmarks(String[] filters) {
+        this.filters = filters;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            this.threads = (com.sun.management.ThreadMXBean) bean;
+            this.threads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.threads = null;
+        }
+    }
+
+    /**
+     * Runs every selected benchmark and prints one line per benchmark.
+     *
+     * @throws Exception If a benchmark fails
+     */
+    public void runAll() throws Exception {
+        ArrayList<Stage> stages = DevinIsler.createStages();
+        Level level = Level.getDefault();
+        RectArray obstacles = level.getObstacles();
+
+        System.out.printf("%-24s %14s %10s %12s%n", "Benchmark", "ns/op", "error", "B/op");
+
+        // Player standing on the floor, below the spike row and away from walls
+        Map floorMap = new Map(stages.get(0), new Player(300, 160), level);
+        Player floorPlayer = floorMap.getPlayer();
+
+        if (isSelected("checkCollision")) {
+            // Positions spread over the level, each tested against every obstacle
+            double[] xs = {131, 300, 420, 560, 700, 755};
+            double[] ys = {465, 160, 350, 200, 250, 190};
+            run("checkCollision", count -> {
+                int hits = 0;
+                int size = obstacles.size();
+                for (int n = 0; n < count; n++) {
+                    int p = n % xs.length;
+                    if (floorMap.checkCollision(xs[p], ys[p], obstacles, n % size)) {
+                        hits++;
+                    }
+                }
+                return hits;
+            });
+        }
+
+        if (isSelected("checkTouchGround")) {
+            run("checkTouchGround", count -> {
+                int hits = 0;
+                for (int n = 0; n < count; n++) {
+                    if (floorMap.checkTouchGround(obstacles)) {
+                        hits++;
+                    }
+                }
+                return hits + floorPlayer.getY();
+            });
+        }
+
+        if (isSelected("checkTouchCeiling")) {
+            // Right below the platform at 360..390
+            Map ceilingMap = new Map(stages.get(0), new Player(420, 350), level);
+            run("checkTouchCeiling", count -> {
+                int hits = 0;
+                for (int n = 0; n < count; n++) {
+                    if (ceilingMap.checkTouchCeiling(obstacles)) {
+                        hits++;
+                    }
+                }
+                return hits;
+            });
+        }
+
+        if (isSelected("checkSpikeCollision")) {
+            RectArray spikes = level.getSpikes();
+            run("checkSpikeCollision", count -> {
+                int hits = 0;
+                for (int n = 0; n < count; n++) {
+                    if (floorMap.checkSpikeCollision(spikes)) {
+                        hits++;
+                    }
+                }
+                return hits;
+            });
+        }
+
+        // The fastest route of every stage, used as realistic input
+        int[][] paths = null;
+        if (isSelected("physicsTick") || isSelected("fullReplay")) {
+            paths = new int[stages.size()][];
+            for (int i = 0; i < stages.size(); i++) {
+                paths[i] = new Solver(stages.get(i), level, ForkJoinPool.commonPool()).solve();
+            }
+        }
+
+        if (isSelected("physicsTick")) {
+            // Plays the route of the first stage over and over, one tick per operation
+            int[] route = paths[0];
+            Map map = new Map(stages.get(0), new Player(level.getSpawnX(), level.getSpawnY()), level);
+            double[] start = new double[Map.STATE_SIZE];
+            map.saveState(start, 0);
+            int[] position = {0};
+            run("physicsTick", count -> {
+                int t = position[0];
+                for (int n = 0; n < count; n++) {
+                    if (t == route.length) {
+                        map.loadState(start, 0);
+                        t = 0;
+                    }
+                    map.step(route[t++]);
+                }
+                position[0] = t;
+                return map.getPlayer().getX();
+            });
+        }
+
+        if (isSelected("entityTick")) {
+            // Hundreds of entities of every type spread over the level, moved and sorted once per operation
+            int entityCount = 800;
+            int[] types = new int[entityCount];
+            int[][] values = new int[entityCount][];
+            double[] speeds = new double[entityCount];
+            Random random = new Random(1);
+            for (int i = 0; i < entityCount; i++) {
+                int x = random.nextInt(level.getWidth());
+                int y = random.nextInt(level.getHeight());
+                types[i] = i % 3;
+                values[i] = new int[]{x, y, x + random.nextInt(100), y + random.nextInt(50), 20, 10};
+                speeds[i] = 1 + random.nextInt(3);
+            }
+            double[] spikeAngles = new double[level.getSpikes().size()];
+            for (int i = 0; i < spikeAngles.length; i++) {
+                spikeAngles[i] = level.getSpikeAngle(i);
+            }
+            Level busyLevel = new Level(level.getWidth(), level.getHeight(), level.getSpawnX(), level.getSpawnY(),
+                    obstacles, level.getSpikes(), spikeAngles, level.getButton(), level.getButtonFloor(),
+                    level.getDoor(), level.getStartPipe(), level.getExitPipe(),
+                    new EntityArray(types, values, speeds));
+            EntitySystem entities = new EntitySystem(busyLevel);
+            int[] tick = {0};
+            run("entityTick", count -> {
+                int t = tick[0];
+                for (int n = 0; n < count; n++) {
+                    entities.update(t++);
+                }
+                tick[0] = t;
+                return entities.x(0);
+            });
+        }
+
+        if (isSelected("particleTick")) {
+            // A pool kept near 4000 live particles by a death burst whenever it drops below
+            ParticlePool particles = new ParticlePool(4096);
+            run("particleTick", count -> {
+                for (int n = 0; n < count; n++) {
+                    while (particles.size() < 4000) {
+                        particles.burst(400, 300);
+                    }
+                    particles.tick();
+                }
+                return particles.size();
+            });
+        }
+
+        if (isSelected("render")) {
+            if (GraphicsEnvironment.isHeadless()) {
+                System.out.printf("%-24s %s%n", "render", "skipped, no display");
+            } else {
+                Game game = new Game(stages);
+                Renderer renderer = StdDrawRenderer.open(800, 600);
+                game.setRenderer(renderer);
+                game.loadAssets();
+                // Frames go to the offscreen buffer only, show() is never called
+                run("render", count -> {
+                    for (int n = 0; n < count; n++) {
+                        renderer.clear();
+                        game.render(0.5);
+                    }
+                    return count;
+                });
+            }
+        }
+
+        if (isSelected("fullReplay")) {
+            ByteArrayOutputStream recording = new ByteArrayOutputStream();
+            Solver.writeRecording(paths, stages, recording);
+            byte[] data = recording.toByteArray();
+            if (new Replay(data).run().getState() != GameState.COMPLETED) {
+                throw new IllegalStateException("Solved run does not complete the game");
+            }
+            run("fullReplay", count -> {
+                int deaths = 0;
+                for (int n = 0; n < count; n++) {
+                    deaths += new Replay(data).run().getDeathCount();
+                }
+                return deaths;
+            });
+        }
+    }
+
+    /**
+     * Checks whether a benchmark passes the name filters.
+     *
+     * @param name Name of the benchmark
+     * @return true if the benchmark should run
+     */
+    private boolean isSelected(String name) {
+        if (filters.length == 0) {
+            return true;
+        }
+        for (String filter : filters) {
+            if (name.contains(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calibrates, warms up and measures one benchmark, then prints its result.
+     *
+     * @param name Name of the benchmark
+     * @param operation The benchmarked operation
+     * @throws Exception If the operation fails
+     */
+    private void run(String name, Operation operation) throws Exception {
+        // Grow the batch until one call takes long enough to time reliably
+        int batch = 1;
+        while (true) {
+            long start = System.nanoTime();
+            sink += operation.run(batch);
+            if (System.nanoTime() - start >= CALIBRATION_NANOS || batch >= 1 << 30) {
+                break;
+            }
+            batch <<= 1;
+        }
+
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < warmupEnd) {
+            sink += operation.run(batch);
+        }
+
+        double[] nanosPerOp = new double[ITERATIONS];
+        double bytesPerOp = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long operations = 0;
+            long allocatedBefore = threads == null ? 0 : threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long end = start + ITERATION_NANOS;
+            long now = start;
+            while (now < end) {
+                sink += operation.run(batch);
+                operations += batch;
+                now = System.nanoTime();
+            }
+            long allocatedAfter = threads == null ? 0 : threads.getCurrentThreadAllocatedBytes();
+            nanosPerOp[i] = (double) (now - start) / operations;
+            bytesPerOp += (double) (allocatedAfter - allocatedBefore) / operations / ITERATIONS;
+        }
+
+        double mean = 0;
+        for (double value : nanosPerOp) {
+            mean += value / ITERATIONS;
+        }
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean) / (ITERATIONS - 1);
+        }
+        String allocation = threads == null ? "n/a" : String.format("%.1f", bytesPerOp);
+        System.out.printf("%-24s %14.2f %10.2f %12s%n", name, mean, Math.sqrt(variance), allocation);
+    }
+
+    /**
+     * Runs the benchmarks selected on the command line.
+     *
+     * @param args Name filters, all benchmarks run if none are given
+     * @throws Exception If a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        new Benchmarks(args).runAll();
+    }
+}
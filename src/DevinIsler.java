@@ -4,42 +4,187 @@
 /**
  * Entry point for the game. Initializes stages and starts the game.
  *
- * This class creates the list of stages, sets up StdDraw configurations,
- * and launches the Game instance to begin gameplay.
+ * This class creates the list of stages, opens the window and runs the game
+ * loop. Frames are drawn through StdDraw at the native world size unless
+ * -java2d selects the page flipping Java2DRenderer, whose window can be
+ * resized freely; -fullscreen opens it over the whole screen and -vsync asks
+ * it to present in step with the display. Either way the loop paces frames
+ * to the refresh rate of the screen.
  *
+ * Nothing is written next to the game unless asked for: -record saves the
+ * input of the run for Replay and -profile, besides showing the timing
+ * overlay, saves the frame timings when the game exits. These, the ghosts
+ * and the leaderboard all go under the .onlylevel directory in the home
+ * directory of the user.
  *
  * @author Devin Isler
  * @version 1.0
  */
 
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
 import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 public class DevinIsler {
     public static void main(String[] args) {
         boolean isGameFinished = false;
-        final int NULL_BUTTON = -1;
 
-        // Canvas dimensions
-        final int CANVAS_WIDTH = 800;
-        final int CANVAS_HEIGHT = 600;
-        final int FRAME_DELAY = 15;
+        // World dimensions, every coordinate of the game is in these units
+        final int WORLD_WIDTH = 800;
+        final int WORLD_HEIGHT = 600;
+
+        // Simulation runs at a fixed rate, rendering at the display refresh rate
+        final long TICK_NANOS = 1_000_000_000L / Game.TICKS_PER_SECOND;
+        final long MAX_LAG_NANOS = 250_000_000L;
+        final long FRAME_NANOS = 1_000_000_000L / getRefreshRate();
+
+        // Images are decoded in the background while the window comes up
+        SpriteCache.preload("./misc");
+
+        List<String> options = Arrays.asList(args);
+        ArrayList<Stage> stages = createStages();
+
+        InputQueue input = new InputQueue(WORLD_WIDTH, WORLD_HEIGHT);
+        Game game = new Game(stages, input);
+        Renderer renderer;
+        boolean fullScreen = options.contains("-fullscreen");
+        if (options.contains("-java2d") || fullScreen) {
+            renderer = new Java2DRenderer("OnlyLevel", WORLD_WIDTH, WORLD_HEIGHT, options.contains("-vsync"),
+                    fullScreen);
+        } else {
+            renderer = StdDrawRenderer.open(WORLD_WIDTH, WORLD_HEIGHT);
+        }
+        game.setRenderer(renderer);
+        input.install();
+
+        // Time every frame phase, F3 or the -profile argument shows the overlay
+        FrameProfiler profiler = new FrameProfiler();
+        profiler.setOverlayVisible(options.contains("-profile"));
+        game.setProfiler(profiler);
+        boolean wasToggleDown = false;
+
+        File dataDirectory = getDataDirectory();
+        File recordings = new File(dataDirectory, "recordings");
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+
+        // The -record argument saves the run so it can be replayed headless later
+        if (options.contains("-record")) {
+            recordings.mkdirs();
+            try {
+                InputRecorder recorder = InputRecorder.open(new File(recordings, "run-" + name + ".olr").getPath(),
+                        stages, Game.TICKS_PER_SECOND);
+                game.setRecorder(recorder);
+                Runtime.getRuntime().addShutdownHook(new Thread(recorder::close));
+            } catch (IOException e) {
+                System.err.println("Recording disabled: " + e.getMessage());
+            }
+        }
+
+        // Race against the best runs of every stage, the player's own are saved under their login name
+        String playerName = System.getProperty("user.name", "player");
+        game.setGhosts(new GhostRace(new File(dataDirectory, "ghosts").getPath(), playerName));
+
+        // Every finished run goes to the local leaderboard
+        try {
+            game.setLeaderboard(Leaderboard.open(new File(dataDirectory, "leaderboard").getPath()), playerName);
+        } catch (IOException e) {
+            System.err.println("Leaderboard disabled: " + e.getMessage());
+        }
+
+        // With -profile the frame timings are written when the game exits
+        if (options.contains("-profile")) {
+            String timingPath = new File(recordings, "run-" + name + "-frames.csv").getPath();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                recordings.mkdirs();
+                try {
+                    profiler.writeCsv(timingPath);
+                } catch (IOException e) {
+                    System.err.println("Frame timings not written: " + e.getMessage());
+                }
+            }));
+        }
+
+        // Every sprite of the first frame is ready before it is drawn
+        game.loadAssets();
+
+        long previousTime = System.nanoTime();
+        long nextFrame = previousTime;
+        long lag = 0;
+        while (!isGameFinished) {
+            long frameStart = System.nanoTime();
+            profiler.beginFrame();
+            lag += frameStart - previousTime;
+            previousTime = frameStart;
+
+            // Drop time we cannot catch up on instead of spiralling into endless ticks
+            if (lag > MAX_LAG_NANOS) {
+                lag = MAX_LAG_NANOS;
+            }
+
+            while (lag >= TICK_NANOS && !game.getEndGame()) {
+                game.tick();
+                lag -= TICK_NANOS;
+            }
+
+            boolean isToggleDown = input.isKeyDown(KeyEvent.VK_F3);
+            if (isToggleDown && !wasToggleDown) {
+                profiler.setOverlayVisible(!profiler.isOverlayVisible());
+            }
+            wasToggleDown = isToggleDown;
+
+            profiler.enter(FrameProfiler.STATIC_DRAW);
+            renderer.clear();
+            game.render((double) lag / TICK_NANOS);
+            profiler.drawOverlay(renderer);
+            profiler.enter(FrameProfiler.SHOW);
+            renderer.show();
+            profiler.endFrame();
+            isGameFinished = game.getEndGame();
+
+            // Frames start on a fixed grid, a frame that overran starts the grid anew
+            nextFrame += FRAME_NANOS;
+            if (nextFrame < System.nanoTime()) {
+                nextFrame = System.nanoTime();
+            }
+            waitUntil(nextFrame);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Creates the stages of the game in playing order.
+     *
+     * @return The list of stages
+     */
+    public static ArrayList<Stage> createStages() {
+        final int NULL_BUTTON = -1;
 
         // Given Stages
-        Stage stage1 = new Stage(-0.45, 3.65, 10, 0, KeyEvent.VK_RIGHT, KeyEvent.VK_LEFT, KeyEvent.VK_UP,
-                "Arrow keys are required", "Arrow keys move player, press button and enter the second pipe");  // normal game
+        Stage stage1 = new Stage(0, "Arrow keys are required",
+                "Arrow keys move player, press button and enter the second pipe");  // normal game
 
-        Stage stage2 = new Stage(-0.45, 3.65, 10, 1, KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP,
-                "Not always straight forward", "Right and left buttons reversed");  // Reversed Buttons
+        Stage stage2 = new Stage(1, "Not always straight forward", "Right and left buttons reversed",
+                StageRule.remapKeys(KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP),
+                StageRule.flipSprite());  // Reversed Buttons
 
-        Stage stage3 = new Stage(-2, 3.65, 24, 2, KeyEvent.VK_RIGHT, KeyEvent.VK_LEFT, NULL_BUTTON,
-                "A bit bouncy here", "You jump constantly");  // bouncing
+        Stage stage3 = new Stage(2, "A bit bouncy here", "You jump constantly",
+                StageRule.physics(-2, 3.65, 24),
+                StageRule.remapKeys(KeyEvent.VK_RIGHT, KeyEvent.VK_LEFT, NULL_BUTTON),
+                StageRule.autoBounce());  // bouncing
 
-        Stage stage4 = new Stage(-0.45, 3.65, 10, 3, KeyEvent.VK_RIGHT, KeyEvent.VK_LEFT, KeyEvent.VK_UP,
-                "Never gonna give you up", "Press button 5 times");
+        Stage stage4 = new Stage(3, "Never gonna give you up", "Press button 5 times",
+                StageRule.pressCount(5));
 
-        Stage stage5 = new Stage(-0.45, 3.65, 10, 4, KeyEvent.VK_H, KeyEvent.VK_F, KeyEvent.VK_T,
-                "Center keyboard", "Use 'F', 'T', 'H' keys to move");
+        Stage stage5 = new Stage(4, "Center keyboard", "Use 'F', 'T', 'H' keys to move",
+                StageRule.remapKeys(KeyEvent.VK_H, KeyEvent.VK_F, KeyEvent.VK_T));
 
 
         // Add the stages to the arraylist
@@ -49,20 +194,50 @@ public class DevinIsler {
         stages.add(stage3);
         stages.add(stage4);
         stages.add(stage5);
+        return stages;
+    }
 
-        Game game = new Game(stages);
-        StdDraw.setCanvasSize(CANVAS_WIDTH, CANVAS_HEIGHT);
-        StdDraw.setXscale(0, CANVAS_WIDTH);
-        StdDraw.setYscale(0, CANVAS_HEIGHT);
+    /**
+     * Returns the directory everything the game writes goes under, so nothing lands in
+     * the directory the game was started from.
+     *
+     * @return The .onlylevel directory in the home directory of the user
+     */
+    public static File getDataDirectory() {
+        return new File(System.getProperty("user.home"), ".onlylevel");
+    }
 
-        while (!isGameFinished) {
-            StdDraw.enableDoubleBuffering();
-            StdDraw.clear();
-            game.play();
-            StdDraw.show();
-            StdDraw.pause(FRAME_DELAY);
-            isGameFinished = game.getEndGame();
+    /**
+     * Waits until the given time. Parking is only as precise as the scheduler, which can
+     * be off by a millisecond or more, so the last millisecond is spent spinning.
+     *
+     * @param deadline Time to wait for, in System.nanoTime() units
+     */
+    private static void waitUntil(long deadline) {
+        final long SPIN_NANOS = 1_000_000L;
+
+        long remaining = deadline - System.nanoTime();
+        while (remaining > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+            remaining = deadline - System.nanoTime();
         }
-        System.exit(0);
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Returns the refresh rate of the default screen, falling back to 60 Hz when unknown.
+     *
+     * @return The refresh rate in frames per second
+     */
+    private static int getRefreshRate() {
+        DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDisplayMode();
+        int refreshRate = mode.getRefreshRate();
+        if (refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN) {
+            return 60;
+        }
+        return refreshRate;
     }
 }
\ No newline at end of file
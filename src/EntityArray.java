@@ -0,0 +1,219 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Immutable structure-of-arrays describing the moving entities of a level.
+ *
+ * Every entity is defined by two points A and B, a size and a speed. A
+ * platform or an enemy moves back and forth between A and B, a spinner
+ * orbits around A through B and turns its spikes as it goes; a spinner whose
+ * B equals A spins in place. Platforms are solid, spinners and enemies kill
+ * on touch. Nothing here changes while playing, the positions of the running
+ * entities live in EntitySystem.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compiled entity definitions with their path, size and speed.
+ */
+public class EntityArray {
+    // Entity types
+    public static final int PLATFORM = 0;
+    public static final int SPINNER = 1;
+    public static final int ENEMY = 2;
+
+    private final byte[] type;
+    private final double[] ax;
+    private final double[] ay;
+    private final double[] bx;
+    private final double[] by;
+    private final double[] halfWidth;
+    private final double[] halfHeight;
+    private final double[] speed;
+    private final double[] length;
+    private final double[] startAngle;
+
+    /**
+     * Compiles entities given as a type, [ax, ay, bx, by, width, height] and a speed each.
+     *
+     * @param types PLATFORM, SPINNER or ENEMY per entity
+     * @param values The points and the size of every entity
+     * @param speeds Pixels per tick for platforms and enemies, degrees per tick for spinners
+     */
+    public EntityArray(int[] types, int[][] values, double[] speeds) {
+        this(types.length);
+        if (values.length != types.length || speeds.length != types.length) {
+            throw new IllegalArgumentException("Every entity needs a type, points, a size and a speed");
+        }
+        for (int i = 0; i < types.length; i++) {
+            int[] v = values[i];
+            set(i, types[i], v[0], v[1], v[2], v[3], v[4], v[5], speeds[i]);
+        }
+    }
+
+    /**
+     * Compiles entities stored as a type byte, six 16-bit values (ax, ay, bx, by, width,
+     * height) and a float speed each, straight from a buffer. The buffer position moves
+     * past the entities.
+     *
+     * @param buffer Buffer positioned at the first entity
+     * @param count Number of entities to read
+     */
+    public EntityArray(ByteBuffer buffer, int count) {
+        this(count);
+        for (int i = 0; i < count; i++) {
+            set(i, buffer.get(), buffer.getShort(), buffer.getShort(), buffer.getShort(), buffer.getShort(),
+                    buffer.getShort(), buffer.getShort(), buffer.getFloat());
+        }
+    }
+
+    /**
+     * Allocates the arrays for the given number of entities.
+     *
+     * @param size Number of entities
+     */
+    private EntityArray(int size) {
+        type = new byte[size];
+        ax = new double[size];
+        ay = new double[size];
+        bx = new double[size];
+        by = new double[size];
+        halfWidth = new double[size];
+        halfHeight = new double[size];
+        speed = new double[size];
+        length = new double[size];
+        startAngle = new double[size];
+    }
+
+    /**
+     * Stores one entity with the length and the direction of its path.
+     *
+     * @param i Entity index
+     * @param entityType PLATFORM, SPINNER or ENEMY
+     * @param pointAX X-coordinate of A
+     * @param pointAY Y-coordinate of A
+     * @param pointBX X-coordinate of B
+     * @param pointBY Y-coordinate of B
+     * @param width Width of the entity
+     * @param height Height of the entity
+     * @param entitySpeed Pixels or degrees per tick
+     */
+    private void set(int i, int entityType, double pointAX, double pointAY, double pointBX, double pointBY,
+                     double width, double height, double entitySpeed) {
+        if (entityType < PLATFORM || entityType > ENEMY) {
+            throw new IllegalArgumentException("Unknown entity type " + entityType);
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Entities need a positive size");
+        }
+        type[i] = (byte) entityType;
+        ax[i] = pointAX;
+        ay[i] = pointAY;
+        bx[i] = pointBX;
+        by[i] = pointBY;
+        halfWidth[i] = width / 2;
+        halfHeight[i] = height / 2;
+        speed[i] = entitySpeed;
+        length[i] = Math.hypot(pointBX - pointAX, pointBY - pointAY);
+        startAngle[i] = Math.atan2(pointBY - pointAY, pointBX - pointAX);
+    }
+
+    /**
+     * @return The number of entities
+     */
+    public int size() {
+        return type.length;
+    }
+
+    /**
+     * @param i Entity index
+     * @return PLATFORM, SPINNER or ENEMY
+     */
+    public int type(int i) {
+        return type[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return Whether the player stands on and bumps into the entity instead of dying
+     */
+    public boolean isSolid(int i) {
+        return type[i] == PLATFORM;
+    }
+
+    /**
+     * @param i Entity index
+     * @return The x-coordinate of A, the start of the path or the pivot
+     */
+    public double ax(int i) {
+        return ax[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return The y-coordinate of A, the start of the path or the pivot
+     */
+    public double ay(int i) {
+        return ay[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return The x-coordinate of B, the end of the path or the start of the orbit
+     */
+    public double bx(int i) {
+        return bx[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return The y-coordinate of B, the end of the path or the start of the orbit
+     */
+    public double by(int i) {
+        return by[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return Half of the entity width
+     */
+    public double halfWidth(int i) {
+        return halfWidth[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return Half of the entity height
+     */
+    public double halfHeight(int i) {
+        return halfHeight[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return Pixels per tick along the path, or degrees per tick around the pivot
+     */
+    public double speed(int i) {
+        return speed[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return The distance from A to B, the path length or the orbit radius
+     */
+    public double length(int i) {
+        return length[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return The direction from A to B in radians, where a spinner starts its orbit
+     */
+    public double startAngle(int i) {
+        return startAngle[i];
+    }
+}
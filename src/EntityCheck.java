@@ -0,0 +1,132 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Checks the moving entities of a level headless.
+ *
+ * Runs the real Map physics of the first stage on the sample level in
+ * misc/entities.level and puts the player where each behaviour shows:
+ *  - riding: standing on the lift, the player rises and sinks with it,
+ *  - carrying: standing on the ferry, the player travels along with it,
+ *  - spinner deaths: standing on the pedestal under the long spinner, the
+ *    player is safe while the spinner lies flat and dies once it has
+ *    turned down far enough to reach it.
+ * Every check prints one line. A failed check sets the exit status to 1.
+ *
+ * Usage: java EntityCheck [level]
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.IOException;
+
+/**
+ * Headless regression check for platforms and spinners.
+ */
+public class EntityCheck {
+    private static final String DEFAULT_PATH = "./misc/entities.level";
+
+    private final Stage stage = DevinIsler.createStages().get(0);
+    private final Level level;
+    private boolean passed = true;
+
+    /**
+     * Constructs the check for a level laid out like the sample level.
+     *
+     * @param level The level to play
+     */
+    public EntityCheck(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Creates a map with the player placed at the given point, from where it falls.
+     *
+     * @param x The x-coordinate of the player
+     * @param y The y-coordinate of the player
+     * @return The new map
+     */
+    private Map drop(double x, double y) {
+        return new Map(stage, new Player(x, y), level);
+    }
+
+    /**
+     * Prints the outcome of one check and remembers a failure.
+     *
+     * @param name Name of the check
+     * @param ok Whether the check held
+     * @param detail What was measured
+     */
+    private void report(String name, boolean ok, String detail) {
+        System.out.printf("%-14s %s  %s%n", name, ok ? "ok" : "FAILED", detail);
+        passed &= ok;
+    }
+
+    /**
+     * Stands the player on the lift, which rises one unit per tick from y = 150 to 350 and
+     * sinks back, and checks that the player stays on its top the whole way.
+     */
+    public void checkRiding() {
+        Map map = drop(200, 175);
+        double worst = 0;
+        for (int tick = 1; tick <= 400; tick++) {
+            map.step(0);
+            double liftY = 150 + (tick <= 200 ? tick : 400 - tick);
+            if (tick > 20) {
+                worst = Math.max(worst, Math.abs(map.getPlayer().getY() - (liftY + 20)));
+            }
+        }
+        report("riding", worst <= 1 && map.getDeathCount() == 0,
+                String.format("off the lift by at most %.2f", worst));
+    }
+
+    /**
+     * Stands the player on the ferry, which moves one unit per tick from x = 400 to 600,
+     * and checks that once landed the player is carried the same distance.
+     */
+    public void checkCarrying() {
+        Map map = drop(400, 330);
+        for (int tick = 1; tick <= 20; tick++) {
+            map.step(0);
+        }
+        double landedX = map.getPlayer().getX();
+        for (int tick = 1; tick <= 100; tick++) {
+            map.step(0);
+        }
+        double moved = map.getPlayer().getX() - landedX;
+        report("carrying", Math.abs(moved - 100) <= 1 && Math.abs(map.getPlayer().getY() - 320) <= 1,
+                String.format("carried %.2f of 100", moved));
+    }
+
+    /**
+     * Stands the player on the pedestal under the spinner and checks that the player
+     * survives while the spinner is flat and dies within half a turn.
+     */
+    public void checkSpinnerDeath() {
+        Map map = drop(700, 402);
+        map.step(0);
+        boolean safeWhileFlat = map.getDeathCount() == 0;
+        int tick = 1;
+        while (map.getDeathCount() == 0 && tick < 60) {
+            map.step(0);
+            tick++;
+        }
+        report("spinner death", safeWhileFlat && map.getDeathCount() == 1,
+                map.getDeathCount() == 0 ? "not killed" : String.format("killed on tick %d", tick));
+    }
+
+    /**
+     * Runs every check and sets the exit status.
+     *
+     * @param args Optional path of the level, the sample level by default
+     * @throws IOException If the level cannot be loaded
+     */
+    public static void main(String[] args) throws IOException {
+        EntityCheck check = new EntityCheck(LevelFile.load(args.length > 0 ? args[0] : DEFAULT_PATH));
+        check.checkRiding();
+        check.checkCarrying();
+        check.checkSpinnerDeath();
+        System.exit(check.passed ? 0 : 1);
+    }
+}
@@ -0,0 +1,354 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Runs the moving entities of a level.
+ *
+ * Positions, velocities, spin angles and bounds live in primitive arrays
+ * indexed by entity, and one loop per tick moves every entity. A position is
+ * a function of the tick alone, so the state of all entities is one number:
+ * replays, the rewind buffer and the solver only need the tick to restore it.
+ * The bounds of a spinner hold its rectangle turned by the spin angle, the
+ * way its sprite is drawn, so its kill box turns with it.
+ *
+ * After moving, the entities are sorted into a uniform grid for the
+ * broadphase. The grid is rebuilt with a counting sort into arrays sized once
+ * in the constructor, so a tick allocates nothing however many entities run.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.util.Arrays;
+
+/**
+ * Entity positions and velocities of one map, with a broadphase grid rebuilt every tick.
+ */
+public class EntitySystem {
+    private static final double CELL_SIZE = 60;
+
+    private final EntityArray entities;
+    private final double[] x;
+    private final double[] y;
+    private final double[] velocityX;  // Displacement of the last tick
+    private final double[] velocityY;
+    private final double[] angle;  // Spin of the sprite in degrees
+    private final RectArray bounds;
+    private int currentTick = Integer.MIN_VALUE;  // Tick of the positions, none before the first update
+
+    // Broadphase grid over the level, cell c holds cellItems[cellStart[c]] .. cellItems[cellStart[c + 1] - 1]
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellFill;
+    private final int[] cellItems;
+    private final int[] firstColumn;  // Cells covered by each entity, found in the first pass of a rebuild
+    private final int[] lastColumn;
+    private final int[] firstRow;
+    private final int[] lastRow;
+
+    /**
+     * Creates the entities of a level. They are placed by the first call to update().
+     *
+     * @param level The level defining the entities
+     */
+    public EntitySystem(Level level) {
+        this.entities = level.getEntities();
+        int size = entities.size();
+        this.x = new double[size];
+        this.y = new double[size];
+        this.velocityX = new double[size];
+        this.velocityY = new double[size];
+        this.angle = new double[size];
+        this.bounds = new RectArray(size);
+
+        this.columns = (int) Math.floor(level.getWidth() / CELL_SIZE) + 1;
+        this.rows = (int) Math.floor(level.getHeight() / CELL_SIZE) + 1;
+        this.cellStart = new int[columns * rows + 1];
+        this.cellFill = new int[columns * rows];
+        this.firstColumn = new int[size];
+        this.lastColumn = new int[size];
+        this.firstRow = new int[size];
+        this.lastRow = new int[size];
+
+        // An entity covers at most this many cells wherever it moves, a spinner at any angle
+        int capacity = 0;
+        for (int i = 0; i < size; i++) {
+            double reachX = entities.halfWidth(i);
+            double reachY = entities.halfHeight(i);
+            if (entities.type(i) == EntityArray.SPINNER) {
+                reachX = Math.hypot(reachX, reachY);
+                reachY = reachX;
+            }
+            int spanX = (int) Math.min(columns, Math.floor(reachX * 2 / CELL_SIZE) + 2);
+            int spanY = (int) Math.min(rows, Math.floor(reachY * 2 / CELL_SIZE) + 2);
+            capacity += spanX * spanY;
+        }
+        this.cellItems = new int[capacity];
+    }
+
+    /**
+     * Moves every entity to where it is on the given tick and rebuilds the broadphase.
+     * Stepping to the next tick reuses the current positions as the previous ones, any
+     * other jump places the entities on the tick before as well to get their velocities.
+     * Staying on the same tick, as the solver does for sibling states, costs nothing.
+     *
+     * @param tick Ticks since the stage started
+     */
+    public void update(int tick) {
+        if (tick == currentTick) {
+            return;
+        }
+        boolean next = tick == currentTick + 1;
+        for (int i = 0; i < entities.size(); i++) {
+            if (!next) {
+                place(i, tick - 1);
+            }
+            double oldX = x[i];
+            double oldY = y[i];
+            place(i, tick);
+            velocityX[i] = x[i] - oldX;
+            velocityY[i] = y[i] - oldY;
+            double halfWidth = entities.halfWidth(i);
+            double halfHeight = entities.halfHeight(i);
+            if (entities.type(i) == EntityArray.SPINNER) {
+                double radians = Math.toRadians(angle[i]);
+                double cos = Math.abs(Math.cos(radians));
+                double sin = Math.abs(Math.sin(radians));
+                halfWidth = entities.halfWidth(i) * cos + entities.halfHeight(i) * sin;
+                halfHeight = entities.halfWidth(i) * sin + entities.halfHeight(i) * cos;
+            }
+            bounds.update(i, x[i] - halfWidth, y[i] - halfHeight, x[i] + halfWidth, y[i] + halfHeight);
+        }
+        currentTick = tick;
+        rebuildGrid();
+    }
+
+    /**
+     * Puts one entity where it is on the given tick.
+     *
+     * @param i Entity index
+     * @param tick Ticks since the stage started
+     */
+    private void place(int i, int tick) {
+        if (entities.type(i) == EntityArray.SPINNER) {
+            double orbit = entities.startAngle(i) + Math.toRadians(turn(i, tick));
+            x[i] = entities.ax(i) + entities.length(i) * Math.cos(orbit);
+            y[i] = entities.ay(i) + entities.length(i) * Math.sin(orbit);
+            angle[i] = turn(i, tick);
+        } else {
+            double fraction = pathFraction(i, tick);
+            x[i] = entities.ax(i) + (entities.bx(i) - entities.ax(i)) * fraction;
+            y[i] = entities.ay(i) + (entities.by(i) - entities.ay(i)) * fraction;
+        }
+    }
+
+    /**
+     * Returns how far along its path a platform or enemy is, bouncing back at either end.
+     *
+     * @param i Entity index
+     * @param tick Ticks since the stage started
+     * @return 0 at A, 1 at B
+     */
+    private double pathFraction(int i, int tick) {
+        double length = entities.length(i);
+        if (length == 0 || tick <= 0) {
+            return 0;
+        }
+        double distance = wrap(tick * entities.speed(i), 2 * length);
+        if (distance > length) {
+            distance = 2 * length - distance;
+        }
+        return distance / length;
+    }
+
+    /**
+     * Returns how far a spinner has turned, both around its pivot and about itself.
+     *
+     * @param i Entity index
+     * @param tick Ticks since the stage started
+     * @return The turn in degrees, from 0 to 360
+     */
+    private double turn(int i, int tick) {
+        return wrap(Math.max(0, tick) * entities.speed(i), 360);
+    }
+
+    /**
+     * Wraps a value into [0, period). Unlike the % operator on doubles, whose cost grows
+     * with the quotient, this takes the same few cycles on every tick.
+     *
+     * @param value The value, negative for entities with a negative speed
+     * @param period The period
+     * @return The value plus or minus a whole number of periods
+     */
+    private static double wrap(double value, double period) {
+        double wrapped = value - (long) (value / period) * period;
+        return wrapped < 0 ? wrapped + period : wrapped;
+    }
+
+    /**
+     * Sorts the entities into the grid cells their bounds touch. The first pass finds the
+     * cells of every entity and counts the entities per cell, the second fills them in,
+     * in ascending order.
+     */
+    private void rebuildGrid() {
+        Arrays.fill(cellFill, 0);
+        for (int i = 0; i < entities.size(); i++) {
+            firstColumn[i] = column(bounds.minX(i));
+            lastColumn[i] = column(bounds.maxX(i));
+            firstRow[i] = row(bounds.minY(i));
+            lastRow[i] = row(bounds.maxY(i));
+            for (int row = firstRow[i]; row <= lastRow[i]; row++) {
+                for (int column = firstColumn[i]; column <= lastColumn[i]; column++) {
+                    cellFill[row * columns + column]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cellFill.length; cell++) {
+            cellStart[cell + 1] = cellStart[cell] + cellFill[cell];
+        }
+        System.arraycopy(cellStart, 0, cellFill, 0, cellFill.length);
+        for (int i = 0; i < entities.size(); i++) {
+            for (int row = firstRow[i]; row <= lastRow[i]; row++) {
+                for (int column = firstColumn[i]; column <= lastColumn[i]; column++) {
+                    cellItems[cellFill[row * columns + column]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the solid or the deadly entities in the cells covered by the given box.
+     * Every such entity whose bounds intersect the box is included. Indices are written
+     * in ascending order without duplicates, like ObstacleGrid.query.
+     *
+     * @param minX Left edge of the query box
+     * @param minY Bottom edge of the query box
+     * @param maxX Right edge of the query box
+     * @param maxY Top edge of the query box
+     * @param solid true for platforms, false for spinners and enemies
+     * @param out Buffer receiving the indices, at least as long as the entity set
+     * @return Number of indices written to out
+     */
+    public int query(double minX, double minY, double maxX, double maxY, boolean solid, int[] out) {
+        int count = 0;
+        int lastRow = row(maxY);
+        int lastColumn = column(maxX);
+        for (int row = row(minY); row <= lastRow; row++) {
+            for (int column = column(minX); column <= lastColumn; column++) {
+                int cell = row * columns + column;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int i = cellItems[k];
+                    if (entities.isSolid(i) == solid) {
+                        count = insertSorted(out, count, i);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inserts an index into the sorted prefix of the buffer unless it is already there.
+     *
+     * @param out Buffer holding count sorted indices
+     * @param count Number of indices currently in the buffer
+     * @param index Index to insert
+     * @return The new number of indices
+     */
+    private int insertSorted(int[] out, int count, int index) {
+        int position = count;
+        while (position > 0 && out[position - 1] > index) {
+            position--;
+        }
+        if (position > 0 && out[position - 1] == index) {
+            return count;
+        }
+        System.arraycopy(out, position, out, position + 1, count - position);
+        out[position] = index;
+        return count + 1;
+    }
+
+    /**
+     * Returns the grid column containing x, clamped to the grid.
+     *
+     * @param x The x-coordinate
+     * @return The column index
+     */
+    private int column(double x) {
+        int column = (int) (x / CELL_SIZE);  // Truncating negatives toward 0 is the same after clamping
+        return Math.max(0, Math.min(columns - 1, column));
+    }
+
+    /**
+     * Returns the grid row containing y, clamped to the grid.
+     *
+     * @param y The y-coordinate
+     * @return The row index
+     */
+    private int row(double y) {
+        int row = (int) (y / CELL_SIZE);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    /**
+     * @return The number of entities
+     */
+    public int size() {
+        return entities.size();
+    }
+
+    /**
+     * @return The entity definitions
+     */
+    public EntityArray getEntities() {
+        return entities;
+    }
+
+    /**
+     * @return The bounds of every entity at the current tick
+     */
+    public RectArray getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @param i Entity index
+     * @return The x-coordinate of the entity center
+     */
+    public double x(int i) {
+        return x[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return The y-coordinate of the entity center
+     */
+    public double y(int i) {
+        return y[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return How far the entity moved along x during the last tick
+     */
+    public double velocityX(int i) {
+        return velocityX[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return How far the entity moved along y during the last tick
+     */
+    public double velocityY(int i) {
+        return velocityY[i];
+    }
+
+    /**
+     * @param i Entity index
+     * @return The spin of a spinner in degrees, 0 for the other entities
+     */
+    public double angle(int i) {
+        return angle[i];
+    }
+}
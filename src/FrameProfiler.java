@@ -0,0 +1,273 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Measures where the time of every frame goes.
+ *
+ * The frame is split into phases: input, physics, static draw, dynamic draw,
+ * HUD and presenting the frame with show(). Code marks the start of each phase with enter(),
+ * which charges the time since the previous mark to the previous phase, so a
+ * phase that is entered several times per frame adds up. At the end of the
+ * frame the totals go into log-linear histograms: a rolling one over the last
+ * frames for the live overlay and one over the whole session for the CSV
+ * export. Recording a frame costs a few nanoTime calls and array increments.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.awt.Color;
+import java.awt.Font;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Per-phase frame timer with rolling p50/p99/max statistics.
+ */
+public class FrameProfiler {
+    // Phases of a frame
+    public static final int INPUT = 0;
+    public static final int PHYSICS = 1;
+    public static final int STATIC_DRAW = 2;
+    public static final int DYNAMIC_DRAW = 3;
+    public static final int HUD = 4;
+    public static final int SHOW = 5;
+    private static final int PHASES = 6;
+    private static final int FRAME = PHASES;  // Extra row for the whole frame
+    private static final String[] NAMES = {"input", "physics", "static draw", "dynamic draw", "HUD", "show", "frame"};
+
+    private static final int WINDOW = 256;  // Frames kept for the rolling statistics
+    private static final int SUB_BITS = 3;  // 8 buckets per power of two, within 12.5% of the true value
+    private static final int BUCKETS = 64 << SUB_BITS;
+
+    private static final Font OVERLAY_FONT = new Font("Monospaced", Font.PLAIN, 11);
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 170);
+
+    // Time spent in each phase during the current frame
+    private final long[] current = new long[PHASES];
+    private int phase = -1;
+    private long phaseStart;
+    private long frameStart;
+
+    // Rolling window of the last frames, with bucket counts kept in step
+    private final long[][] window = new long[PHASES + 1][WINDOW];
+    private final long[][] windowBuckets = new long[PHASES + 1][BUCKETS];
+    private int windowSize = 0;
+    private int windowNext = 0;
+
+    // Whole session
+    private final long[][] sessionBuckets = new long[PHASES + 1][BUCKETS];
+    private final long[] sessionTotals = new long[PHASES + 1];
+    private final long[] sessionMax = new long[PHASES + 1];
+    private long frames = 0;
+
+    private boolean overlayVisible = false;
+    private final TextBuffer line = new TextBuffer(32);  // Overlay row, rewritten in place so the overlay allocates nothing
+
+    /**
+     * Starts timing a new frame.
+     */
+    public void beginFrame() {
+        for (int i = 0; i < PHASES; i++) {
+            current[i] = 0;
+        }
+        frameStart = System.nanoTime();
+        phaseStart = frameStart;
+        phase = -1;
+    }
+
+    /**
+     * Ends the running phase and starts the given one.
+     *
+     * @param next The phase that starts now
+     */
+    public void enter(int next) {
+        long now = System.nanoTime();
+        if (phase >= 0) {
+            current[phase] += now - phaseStart;
+        }
+        phase = next;
+        phaseStart = now;
+    }
+
+    /**
+     * Ends the running phase and adds the frame to the statistics.
+     */
+    public synchronized void endFrame() {
+        long now = System.nanoTime();
+        if (phase >= 0) {
+            current[phase] += now - phaseStart;
+        }
+        phase = -1;
+
+        for (int i = 0; i < PHASES; i++) {
+            addSample(i, current[i]);
+        }
+        addSample(FRAME, now - frameStart);
+        windowNext = (windowNext + 1) % WINDOW;
+        if (windowSize < WINDOW) {
+            windowSize++;
+        }
+        frames++;
+    }
+
+    /**
+     * Adds one frame's time of a row to the rolling window and the session histogram.
+     *
+     * @param row Phase or FRAME
+     * @param nanos Time in nanoseconds
+     */
+    private void addSample(int row, long nanos) {
+        if (windowSize == WINDOW) {
+            windowBuckets[row][bucket(window[row][windowNext])]--;
+        }
+        window[row][windowNext] = nanos;
+        int bucket = bucket(nanos);
+        windowBuckets[row][bucket]++;
+        sessionBuckets[row][bucket]++;
+        sessionTotals[row] += nanos;
+        sessionMax[row] = Math.max(sessionMax[row], nanos);
+    }
+
+    /**
+     * Maps a duration to its histogram bucket. Durations below 8 ns get a bucket each,
+     * longer ones share a power of two between 8 buckets.
+     *
+     * @param nanos Duration in nanoseconds
+     * @return The bucket index
+     */
+    private static int bucket(long nanos) {
+        if (nanos < 1 << SUB_BITS) {
+            return (int) Math.max(0, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return (exponent - SUB_BITS + 1) << SUB_BITS | sub;
+    }
+
+    /**
+     * @param bucket The bucket index
+     * @return The smallest duration in the bucket
+     */
+    private static long bucketLower(int bucket) {
+        if (bucket < 1 << SUB_BITS) {
+            return bucket;
+        }
+        int exponent = (bucket >> SUB_BITS) + SUB_BITS - 1;
+        return 1L << exponent | (long) (bucket & ((1 << SUB_BITS) - 1)) << (exponent - SUB_BITS);
+    }
+
+    /**
+     * @param bucket The bucket index
+     * @return One past the largest duration in the bucket
+     */
+    private static long bucketUpper(int bucket) {
+        if (bucket < 1 << SUB_BITS) {
+            return bucket + 1;
+        }
+        int exponent = (bucket >> SUB_BITS) + SUB_BITS - 1;
+        return bucketLower(bucket) + (1L << (exponent - SUB_BITS));
+    }
+
+    /**
+     * Reads a percentile from bucket counts. Returns the upper edge of the bucket it falls in.
+     *
+     * @param counts Bucket counts
+     * @param total Sum of the counts
+     * @param fraction Percentile as a fraction, e.g. 0.99
+     * @return The percentile in nanoseconds, 0 without samples
+     */
+    private static long percentile(long[] counts, long total, double fraction) {
+        long target = Math.max(1, (long) Math.ceil(total * fraction));
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= target) {
+                return bucketUpper(b) - 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return Whether the overlay is drawn
+     */
+    public boolean isOverlayVisible() {
+        return overlayVisible;
+    }
+
+    /**
+     * Shows or hides the overlay.
+     *
+     * @param visible true to draw the overlay
+     */
+    public void setOverlayVisible(boolean visible) {
+        overlayVisible = visible;
+    }
+
+    /**
+     * Draws p50, p99 and max of the last frames for every phase, in microseconds,
+     * just above the Deaths/Stage corner of the HUD.
+     *
+     * @param renderer Target of the frame
+     */
+    public void drawOverlay(Renderer renderer) {
+        if (!overlayVisible) {
+            return;
+        }
+        double right = 795;
+        double left = 615;
+        double top = 215;
+        double lineHeight = 12;
+
+        renderer.setPenColor(OVERLAY_BACKGROUND);
+        renderer.filledRectangle((left + right) / 2, top - 4 * lineHeight + 4, (right - left) / 2 + 5,
+                4 * lineHeight);
+        renderer.setFont(OVERLAY_FONT);
+        renderer.setPenColor(Color.WHITE);
+        renderer.textLeft(left, top, "us          p50   p99   max");
+        for (int row = 0; row <= PHASES; row++) {
+            long max = 0;
+            for (int i = 0; i < windowSize; i++) {
+                max = Math.max(max, window[row][i]);
+            }
+            // Same columns as "%-12s%5d %5d %5d"
+            line.clear().append(NAMES[row]).padTo(12)
+                    .append(percentile(windowBuckets[row], windowSize, 0.5) / 1000, 5, ' ').append(' ')
+                    .append(percentile(windowBuckets[row], windowSize, 0.99) / 1000, 5, ' ').append(' ')
+                    .append(max / 1000, 5, ' ');
+            renderer.textLeft(left, top - (row + 1) * lineHeight, line);
+        }
+    }
+
+    /**
+     * Writes the session statistics as CSV: one summary line per phase with the frame count,
+     * mean, p50, p90, p99, p99.9 and max in nanoseconds, followed by every non-empty
+     * histogram bucket so other percentiles can be computed offline.
+     *
+     * @param path Path of the file to write
+     * @throws IOException If the file cannot be written
+     */
+    public synchronized void writeCsv(String path) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("phase,frames,mean,p50,p90,p99,p999,max,bucketLower,bucketUpper,count");
+            for (int row = 0; row <= PHASES; row++) {
+                long mean = frames == 0 ? 0 : sessionTotals[row] / frames;
+                out.printf("%s,%d,%d,%d,%d,%d,%d,%d,,,%n", NAMES[row], frames, mean,
+                        percentile(sessionBuckets[row], frames, 0.5),
+                        percentile(sessionBuckets[row], frames, 0.9),
+                        percentile(sessionBuckets[row], frames, 0.99),
+                        percentile(sessionBuckets[row], frames, 0.999), sessionMax[row]);
+            }
+            for (int row = 0; row <= PHASES; row++) {
+                for (int b = 0; b < BUCKETS; b++) {
+                    if (sessionBuckets[row][b] > 0) {
+                        out.printf("%s,,,,,,,,%d,%d,%d%n", NAMES[row], bucketLower(b), bucketUpper(b),
+                                sessionBuckets[row][b]);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@
 
 import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
@@ -20,224 +21,535 @@ import java.util.ArrayList;
  * and transitions between stages.
  */
 public class Game {
+    // Simulation rate and banner length
+    public static final int TICKS_PER_SECOND = 60;
+    public static final int BANNER_TICKS = 2 * TICKS_PER_SECOND;
+
+    // UI action bits passed to tick(int), next to the movement bits of Map
+    public static final int ACTION_HELP = 8;
+    public static final int ACTION_RESTART = 16;
+    public static final int ACTION_RESET = 32;
+    public static final int ACTION_PLAY_AGAIN = 64;
+    public static final int ACTION_QUIT = 128;
+    public static final int ACTION_REWIND = 256;
+
+    // Rewind history and its key
+    public static final int REWIND_SECONDS = 60;
+    private static final int REWIND_KEY = KeyEvent.VK_R;
+
+    // Live particles at most, a death burst takes 80
+    private static final int MAX_PARTICLES = 4096;
+
+    // Fonts and colours of the HUD and the banners, created once instead of every frame
+    private static final Font HUD_FONT = new Font("Ariel", Font.PLAIN, 15);
+    private static final Font BANNER_FONT = new Font("Courier New", Font.BOLD, 35);
+    private static final Font BANNER_TWO_LINE_FONT = new Font("Courier New", Font.BOLD, 25);
+    private static final Font BANNER_THREE_LINE_FONT = new Font("Courier New", Font.BOLD, 30);
+    private static final Font BANNER_DETAIL_FONT = new Font("Courier New", Font.BOLD, 15);
+    private static final Color HUD_COLOR = new Color(56, 93, 172);
+
     // Game state properties
     private int stageIndex = 0;
     private final ArrayList<Stage> stages;
-    private int deathNumber = 0;
-    private double gameTime = 0.0;
-    private boolean resetGame;
-    private double resetTime;
+    private GameState state = GameState.PLAYING;
+    private int stateTicks = 0;
+    private int playTicks = 0;
+    private int stageStartTicks = 0;
+    private final int[] splits;
     private boolean isHelpPressed = false;
-    private double startTime = System.currentTimeMillis();
-    private int durationTime = 0;
-    private boolean isGameFinished = false;
     private double minutes;
     private double seconds;
     private double milliseconds;
     private boolean endGame;
-    private boolean endPressed = false;
+
+    // Text that changes while playing, rewritten in place every frame
+    private final TextBuffer timerText = new TextBuffer(16);
+    private final TextBuffer deathsText = new TextBuffer(16);
+    private final TextBuffer stageText = new TextBuffer(16);
+    private final TextBuffer bannerText = new TextBuffer(64);
 
     // Game objects
+    private final InputQueue input;
+    private InputRecorder recorder;
+    private GhostRace ghosts;
+    private Leaderboard leaderboard;
+    private String playerName;
+    private String leaderboardText = "";
+    private FrameProfiler profiler;
+    private Renderer renderer = new StdDrawRenderer();
     private Map map;
-    private final Player player = new Player(131, 465);
+    private final RewindBuffer rewind = new RewindBuffer(REWIND_SECONDS * TICKS_PER_SECOND);
+    private final ParticlePool particles;  // Null in headless games, which draw nothing
+    private final Level level = Level.getDefault();
+    private final Player player = new Player(level.getSpawnX(), level.getSpawnY());
 
     /**
-     * Constructs a game with given stages.
+     * Constructs a headless game with given stages, driven only through tick(int).
      *
      * @param stages List of game stages
      */
     public Game(ArrayList<Stage> stages) {
+        this(stages, null);
+    }
+
+    /**
+     * Constructs a game with given stages.
+     *
+     * @param stages List of game stages
+     * @param input Queue delivering keyboard and mouse events
+     */
+    public Game(ArrayList<Stage> stages, InputQueue input) {
         this.stages = stages;
-        this.map = new Map(this.stages.get(stageIndex), player);
+        this.input = input;
+        this.splits = new int[stages.size()];
+        this.particles = input == null ? null : new ParticlePool(MAX_PARTICLES);
+        this.map = createMap(this.stages.get(stageIndex));
     }
 
     /**
-     * Starts and runs the game, handling the main game loop.
+     * Creates the map of a stage, with particles unless the game is headless.
+     *
+     * @param stage The stage
+     * @return The new map
      */
-    public void play() {
-        handleInput(map);
-        map.draw();
-        updateGameTime();
-        drawGameInterface();
+    private Map createMap(Stage stage) {
+        Map stageMap = new Map(stage, player, level);
+        stageMap.setParticles(particles);
+        return stageMap;
+    }
+
+    /**
+     * Prepares the sprites of the player, the ghosts, the current stage and the backgrounds
+     * of all stages for the renderer, so neither the first frame nor the first frame of a
+     * later stage stalls on rendering or image loading. Images come from the preloaded
+     * atlas when SpriteCache.preload() was called.
+     */
+    public void loadAssets() {
+        player.prepareSprites(renderer);
+        map.prepareSprites(renderer);
+        for (Stage stage : stages) {
+            BackgroundLayer.forStage(stage, level).prepare(renderer);
+        }
+        if (ghosts != null) {
+            ghosts.prepareSprites(renderer);
+        }
+    }
+
+    /**
+     * Advances the game by one fixed simulation tick using the live keyboard and mouse input.
+     * The input of the tick is recorded when a recorder is attached.
+     */
+    public void tick() {
+        enterPhase(FrameProfiler.INPUT);
+        input.beginTick();
+        int inputs = readInput();
+        if (recorder != null) {
+            recorder.record(inputs);
+        }
+        enterPhase(FrameProfiler.PHYSICS);
+        tick(inputs);
+    }
 
-        if (resetGame) {
-            handleGameReset();
+    /**
+     * Advances the game by one fixed simulation tick: UI actions, physics and stage progression.
+     * Does not draw or read any device, so replays run it at full speed.
+     *
+     * @param inputs Bitmask of the Map.INPUT_* movement bits and the ACTION_* bits
+     */
+    public void tick(int inputs) {
+        if (state == GameState.PLAYING) {
+            tickPlaying(inputs);
+        } else if (state == GameState.COMPLETED) {
+            handleEndGameInput(inputs);
+        } else {
+            stateTicks--;
+            if (stateTicks <= 0) {
+                finishBanner();
+            }
+        }
+    }
+
+    /**
+     * Runs one tick of a stage: UI actions, player movement and physics, and the exit check.
+     *
+     * @param inputs Bitmask of movement and action bits
+     */
+    private void tickPlaying(int inputs) {
+        handleActions(inputs);
+        if (state != GameState.PLAYING) {
+            return;
+        }
+
+        // Rewinding steps back one tick per tick held, the timer keeps running
+        if ((inputs & ACTION_REWIND) != 0) {
+            rewind.restore(map);
+        } else {
+            rewind.save(map);
+            map.step(inputs);
+        }
+        playTicks++;
+        if (ghosts != null) {
+            ghosts.tick(player);
         }
 
         if (map.changeStage()) {
-            advanceToNextStage();
+            if (ghosts != null) {
+                ghosts.finishStage();
+            }
+            splits[stageIndex] = playTicks - stageStartTicks;
+            if (getStageIndex() + 1 == stages.size()) {
+                state = GameState.COMPLETED;
+                recordRun();
+            } else {
+                startBanner(GameState.STAGE_BANNER);
+            }
         }
+    }
+
+    /**
+     * Draws the current frame.
+     *
+     * @param alpha Fraction of the next tick that has elapsed, used to interpolate movement
+     */
+    public void render(double alpha) {
+        updateGameTime();
 
-        if (isGameFinished) {
+        if (state == GameState.COMPLETED) {
+            enterPhase(FrameProfiler.HUD);
             showGameCompletionScreen();
+            return;
+        }
+
+        // The map is frozen while a banner is shown, so draw it where the last tick left it
+        map.draw(renderer, state == GameState.PLAYING ? alpha : 1.0, profiler);
+        if (ghosts != null) {
+            enterPhase(FrameProfiler.DYNAMIC_DRAW);
+            ghosts.draw(renderer, state == GameState.PLAYING ? alpha : 1.0);
+        }
+        enterPhase(FrameProfiler.HUD);
+        drawGameInterface();
+
+        if (state == GameState.STAGE_BANNER) {
+            greenBanner("You passed the stage", "But is the level over?!", "");
+        } else if (state == GameState.RESETTING) {
+            greenBanner("RESETTING THE GAME...", "", "");
         }
     }
 
     /**
-     * Updates the game timer.
+     * Updates the game timer. Only ticks spent playing are counted.
      */
     private void updateGameTime() {
-        double currentTime = System.currentTimeMillis();
-        gameTime = currentTime - startTime - durationTime;
+        double gameTime = playTicks * 1000.0 / TICKS_PER_SECOND;
         minutes = Math.floor((gameTime / 1000) / 60);
         seconds = Math.floor((gameTime / 1000) % 60);
         milliseconds = gameTime % 100;
     }
 
+    /**
+     * Writes the game timer as minutes:seconds:hundredths, each two digits wide.
+     *
+     * @param out Buffer the timer is appended to
+     * @return The buffer
+     */
+    private TextBuffer appendGameTime(TextBuffer out) {
+        return out.append((long) minutes, 2, '0').append(':').append((long) seconds, 2, '0').append(':')
+                .append(Math.round(milliseconds), 2, '0');
+    }
+
     /**
      * Draws the game interface elements including timer, buttons, and status information.
      */
     private void drawGameInterface() {
-        StdDraw.setFont(new Font("Ariel", Font.PLAIN, 15));
-        String timeString = String.format("%02.0f:%02.0f:%02.0f", minutes, seconds, milliseconds);
+        renderer.setFont(HUD_FONT);
+        appendGameTime(timerText.clear());
+        deathsText.clear().append("Deaths: ").append(map.getDeathCount());
+        stageText.clear().append("Stage: ").append(getStageIndex() + 1);
 
         // Draw timer area
-        StdDraw.setPenColor(new Color(56, 93, 172));
-        StdDraw.filledRectangle(400, 60, 400, 60);
+        renderer.setPenColor(HUD_COLOR);
+        renderer.filledRectangle(400, 60, 400, 60);
 
         // Draw buttons and text
-        StdDraw.setPenColor(StdDraw.WHITE);
-        StdDraw.text(250, 85, "Help");
-        StdDraw.rectangle(250, 85, 40, 15); // Help button
-        StdDraw.text(550, 85, "Restart");
-        StdDraw.rectangle(550, 85, 40, 15); // Restart button
-        StdDraw.text(400, 20, "RESET THE GAME");
-        StdDraw.rectangle(400, 20, 80, 15); // Reset button
+        renderer.setPenColor(Color.WHITE);
+        renderer.text(250, 85, "Help");
+        renderer.rectangle(250, 85, 40, 15); // Help button
+        renderer.text(550, 85, "Restart");
+        renderer.rectangle(550, 85, 40, 15); // Restart button
+        renderer.text(400, 20, "RESET THE GAME");
+        renderer.rectangle(400, 20, 80, 15); // Reset button
 
         // Draw game status
-        deathNumber = map.getDeathCount();
-        StdDraw.text(700, 75, "Deaths: " + deathNumber);
-        StdDraw.text(700, 50, "Stage: " + (getStageIndex() + 1));
-        StdDraw.text(100, 50, timeString);
-        StdDraw.text(100, 75, "Level: 1");
-        StdDraw.text(400, 85, "Clue:");
+        renderer.text(700, 75, deathsText);
+        renderer.text(700, 50, stageText);
+        renderer.text(100, 50, timerText);
+        renderer.text(100, 75, "Level: 1");
+        renderer.text(400, 85, "Clue:");
 
         // Show clue or help text
         String clueText = getCurrentStage().getClue();
         if (isHelpPressed) {
             clueText = getCurrentStage().getHelp();
         }
-        StdDraw.text(400, 55, clueText);
+        renderer.text(400, 55, clueText);
+    }
+
+    /**
+     * Enters a timed banner state.
+     *
+     * @param bannerState STAGE_BANNER or RESETTING
+     */
+    private void startBanner(GameState bannerState) {
+        state = bannerState;
+        stateTicks = BANNER_TICKS;
     }
 
     /**
-     * Handles the game reset process.
+     * Leaves a banner state once its time is up.
      */
-    private void handleGameReset() {
-        resetGame = false;
-        greenBanner("RESETTING THE GAME...", "", "");
-        StdDraw.show();
-        StdDraw.pause(2000);
-        resetGame();
+    private void finishBanner() {
+        if (state == GameState.RESETTING) {
+            resetGame();
+        } else {
+            advanceToNextStage();
+        }
         isHelpPressed = false;
     }
 
     /**
-     * Advances to the next stage or finishes the game if all stages are completed.
+     * Advances to the next stage, keeping the death count.
      */
     private void advanceToNextStage() {
+        int deathCount = map.getDeathCount();
         stageIndex++;
-        if (getStageIndex() == stages.size()) {
-            isGameFinished = true;
-        } else {
-            player.respawn(new int[]{131, 465});
-            greenBanner("You passed the stage", "But is the level over?!", "");
-            StdDraw.pause(2000);
-            durationTime += 2000;
-            map = new Map(getCurrentStage(), player);
-            map.setDeathCount(deathNumber);
-            isHelpPressed = false;
-        }
+        player.respawn(level.getSpawnX(), level.getSpawnY());
+        map = createMap(getCurrentStage());
+        map.setDeathCount(deathCount);
+        rewind.clear();
+        startGhosts();
+        stageStartTicks = playTicks;
+        state = GameState.PLAYING;
     }
 
     /**
-     * Shows the game completion screen and handles end-game inputs.
+     * Shows the game completion screen. Input is read by tick() while the screen is up.
      */
     private void showGameCompletionScreen() {
-        StdDraw.clear();
-        greenBanner("CONGRATULATIONS YOU FINISHED THE LEVEL", "PRESS 'A' TO PLAY AGAIN!",
-                "You finished with " + deathNumber + " deaths in " +
-                        String.format("%02.0f:%02.0f:%02.0f", minutes, seconds, milliseconds));
-        while (!endPressed) {
-            handleInput(map);
-        }
-        if (!endGame) {
-            resetGame();
-            isHelpPressed = false;
+        bannerText.clear().append("You finished with ").append(map.getDeathCount()).append(" deaths in ");
+        drawBanner("CONGRATULATIONS YOU FINISHED THE LEVEL", "PRESS 'A' TO PLAY AGAIN!", appendGameTime(bannerText));
+        if (!leaderboardText.isEmpty()) {
+            renderer.text(400, 212, leaderboardText);
         }
     }
 
     /**
-     * Handles player input and interactions (keyboard and mouse).
-     *
-     * @param map The current game map
+     * Appends the finished run to the leaderboard and prepares the line showing its rank.
+     * A failure to save is reported but does not stop the game.
      */
-    private void handleInput(Map map) {
-        if (!isGameFinished) {
-            handleMovementInput(map);
-        } else {
-            handleEndGameInput();
+    private void recordRun() {
+        if (leaderboard == null) {
+            return;
+        }
+        LeaderboardEntry entry = new LeaderboardEntry(playerName, System.currentTimeMillis(),
+                map.getDeathCount(), splits);
+        try {
+            int rank = leaderboard.rank(entry.getTotalTicks());
+            leaderboard.record(entry);
+            LeaderboardEntry best = leaderboard.topRuns(1).getFirst();
+            leaderboardText = "Rank " + rank + " of " + leaderboard.size() + ", best "
+                    + LeaderboardEntry.formatTicks(best.getTotalTicks()) + " by " + best.getPlayerName();
+        } catch (IOException e) {
+            System.err.println("Run not saved to the leaderboard: " + e.getMessage());
         }
-        handleMouseInput(map);
     }
 
     /**
-     * Handles keyboard input for player movement.
+     * Reads the live input that applies to the current state.
      *
-     * @param map The current game map
+     * @return Bitmask of movement and action bits
      */
-    private void handleMovementInput(Map map) {
+    private int readInput() {
+        if (state == GameState.PLAYING) {
+            return readMovementInput() | readMouseInput() | readRewindInput();
+        }
+        if (state == GameState.COMPLETED) {
+            return readEndGameInput();
+        }
+        return 0;
+    }
 
-        int[] keyCodes = getCurrentStage().getKeyCodes();
-        if (StdDraw.isKeyPressed(keyCodes[0])) {
-            map.movePlayer('R');
+    /**
+     * Reads the movement keys of the current stage.
+     *
+     * @return Bitmask of Map.INPUT_RIGHT, Map.INPUT_LEFT and Map.INPUT_UP
+     */
+    private int readMovementInput() {
+        int inputs = 0;
+        StageRules rules = getCurrentStage().getRules();
+        if (input.isKeyDown(rules.getRightCode())) {
+            inputs |= Map.INPUT_RIGHT;
         }
-        if (StdDraw.isKeyPressed(keyCodes[1])) {
-            map.movePlayer('L');
+        if (input.isKeyDown(rules.getLeftCode())) {
+            inputs |= Map.INPUT_LEFT;
         }
-        if (StdDraw.isKeyPressed(keyCodes[2])) {
-            map.movePlayer('U');
+        if (input.isKeyDown(rules.getUpCode())) {
+            inputs |= Map.INPUT_UP;
         }
+        return inputs;
     }
 
     /**
-     * Handles keyboard input at the end of the game.
+     * Reads the rewind key.
+     *
+     * @return ACTION_REWIND while the key is held
      */
-    private void handleEndGameInput() {
-        if (StdDraw.isKeyPressed(KeyEvent.VK_A)) {
-            endPressed = true;
-            endGame = false;
+    private int readRewindInput() {
+        return input.isKeyDown(REWIND_KEY) ? ACTION_REWIND : 0;
+    }
+
+    /**
+     * Reads the keys of the completion screen.
+     *
+     * @return ACTION_PLAY_AGAIN and/or ACTION_QUIT bits
+     */
+    private int readEndGameInput() {
+        int actions = 0;
+        if (input.isKeyDown(KeyEvent.VK_A)) {
+            actions |= ACTION_PLAY_AGAIN;
         }
-        if (StdDraw.isKeyPressed(KeyEvent.VK_Q)) {
-            endGame = true;
-            endPressed = true;
+        if (input.isKeyDown(KeyEvent.VK_Q)) {
+            actions |= ACTION_QUIT;
         }
+        return actions;
     }
 
     /**
-     * Handles mouse input for UI interaction.
+     * Turns the mouse clicks of this tick into UI actions. Each click is applied exactly once.
      *
-     * @param map The current game map
+     * @return ACTION_HELP, ACTION_RESTART and/or ACTION_RESET bits
      */
-    private void handleMouseInput(Map map) {
-        double mouseX = StdDraw.mouseX();
-        double mouseY = StdDraw.mouseY();
-
-        if (StdDraw.isMousePressed()) {
+    private int readMouseInput() {
+        int actions = 0;
+        while (input.nextClick()) {
+            double mouseX = input.getClickX();
+            double mouseY = input.getClickY();
             if (mouseX < 290 && mouseX > 210 && mouseY < 100 && mouseY > 70) {
-                isHelpPressed = true;
+                actions |= ACTION_HELP;
             }
             if (mouseX < 590 && mouseX > 510 && mouseY < 100 && mouseY > 70) {
-                map.restartStage();
-                map.setDeathCount(++deathNumber);
+                actions |= ACTION_RESTART;
             }
             if (mouseX < 480 && mouseX > 320 && mouseY < 35 && mouseY > 5) {
-                resetGame = true;
+                actions |= ACTION_RESET;
             }
-            StdDraw.pause(80);
+        }
+        return actions;
+    }
+
+    /**
+     * Handles the end-game actions: play again or quit.
+     *
+     * @param inputs Bitmask of action bits
+     */
+    private void handleEndGameInput(int inputs) {
+        if ((inputs & ACTION_PLAY_AGAIN) != 0) {
+            resetGame();
+            isHelpPressed = false;
+        }
+        if ((inputs & ACTION_QUIT) != 0) {
+            endGame = true;
+        }
+    }
+
+    /**
+     * Handles the help, restart and reset buttons.
+     *
+     * @param inputs Bitmask of action bits
+     */
+    private void handleActions(int inputs) {
+        if ((inputs & ACTION_HELP) != 0) {
+            isHelpPressed = true;
+        }
+        if ((inputs & ACTION_RESTART) != 0) {
+            map.restartStage();
+            map.setDeathCount(map.getDeathCount() + 1);
+        }
+        if ((inputs & ACTION_RESET) != 0) {
+            startBanner(GameState.RESETTING);
+        }
+    }
+
+    /**
+     * Sets where frames are drawn. Games draw through StdDraw unless given another renderer.
+     *
+     * @param renderer The renderer
+     */
+    public void setRenderer(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Attaches a profiler that receives the phase marks of ticks and frames.
+     *
+     * @param profiler The profiler, or null to stop profiling
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Marks the start of a frame phase when a profiler is attached.
+     *
+     * @param phase One of the FrameProfiler phases
+     */
+    private void enterPhase(int phase) {
+        if (profiler != null) {
+            profiler.enter(phase);
+        }
+    }
+
+    /**
+     * Attaches the ghosts to race against, starting with the current stage.
+     *
+     * @param ghosts The ghost race, or null to race alone
+     */
+    public void setGhosts(GhostRace ghosts) {
+        this.ghosts = ghosts;
+        if (ghosts != null) {
+            ghosts.loadSprites(player);
+            startGhosts();
         }
     }
 
+    /**
+     * Starts the ghosts of the current stage when ghosts are attached.
+     */
+    private void startGhosts() {
+        if (ghosts != null) {
+            ghosts.startStage(getCurrentStage());
+        }
+    }
+
+    /**
+     * Attaches the leaderboard that every finished run is added to.
+     *
+     * @param leaderboard The leaderboard, or null to keep no records
+     * @param playerName Name the runs are recorded under
+     */
+    public void setLeaderboard(Leaderboard leaderboard, String playerName) {
+        this.leaderboard = leaderboard;
+        this.playerName = playerName;
+    }
+
+    /**
+     * Attaches a recorder that receives the input of every live tick.
+     *
+     * @param recorder The recorder, or null to stop recording
+     */
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
     /**
      * Returns the current stage index.
      *
@@ -256,6 +568,42 @@ public class Game {
         return stages.get(stageIndex);
     }
 
+    /**
+     * Returns the current state of the game.
+     *
+     * @return The current state
+     */
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of deaths in the current run.
+     *
+     * @return The death count
+     */
+    public int getDeathCount() {
+        return map.getDeathCount();
+    }
+
+    /**
+     * Returns the number of ticks spent playing in the current run.
+     *
+     * @return The played ticks
+     */
+    public int getPlayTicks() {
+        return playTicks;
+    }
+
+    /**
+     * Returns the player.
+     *
+     * @return The player object
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
     /**
      * Returns whether the game should end completely.
      *
@@ -270,16 +618,19 @@ public class Game {
      */
     public void resetGame() {
         stageIndex = 0;
-        map = new Map(stages.getFirst(), player);
+        map = createMap(stages.getFirst());
         map.restartStage();
         map.setDeathCount(0);
-        deathNumber = 0;
-        gameTime = 0;
-        startTime = System.currentTimeMillis();
-        durationTime = 0;
-        isGameFinished = false;
+        rewind.clear();
+        if (particles != null) {
+            particles.clear();
+        }
+        startGhosts();
+        playTicks = 0;
+        stageStartTicks = 0;
+        leaderboardText = "";
+        state = GameState.PLAYING;
         endGame = false;
-        endPressed = false;
     }
 
     /**
@@ -290,29 +641,39 @@ public class Game {
      * @param text3 Tertiary text to display (optional)
      */
     public void greenBanner(String text1, String text2, String text3) {
-        if (text2.isEmpty() && text3.isEmpty()) {
-            StdDraw.setPenColor(StdDraw.GREEN);
-            StdDraw.filledRectangle(400, 320, 400, 70);
-            StdDraw.setPenColor(StdDraw.WHITE);
-            StdDraw.setFont(new Font("Courier New", Font.BOLD, 35));
-            StdDraw.text(400, 320, text1);
-        } else if (text3.isEmpty()) {
-            StdDraw.setPenColor(StdDraw.GREEN);
-            StdDraw.filledRectangle(400, 270, 400, 70);
-            StdDraw.setPenColor(StdDraw.WHITE);
-            StdDraw.setFont(new Font("Courier New", Font.BOLD, 25));
-            StdDraw.text(400, 290, text1);
-            StdDraw.text(400, 250, text2);
+        drawBanner(text1, text2, bannerText.clear().append(text3));
+    }
+
+    /**
+     * Displays a green banner whose last line is written in place.
+     *
+     * @param text1 Primary text to display
+     * @param text2 Secondary text to display (optional)
+     * @param text3 Tertiary text to display (optional)
+     */
+    private void drawBanner(String text1, String text2, TextBuffer text3) {
+        if (text2.isEmpty() && text3.length() == 0) {
+            renderer.setPenColor(Color.GREEN);
+            renderer.filledRectangle(400, 320, 400, 70);
+            renderer.setPenColor(Color.WHITE);
+            renderer.setFont(BANNER_FONT);
+            renderer.text(400, 320, text1);
+        } else if (text3.length() == 0) {
+            renderer.setPenColor(Color.GREEN);
+            renderer.filledRectangle(400, 270, 400, 70);
+            renderer.setPenColor(Color.WHITE);
+            renderer.setFont(BANNER_TWO_LINE_FONT);
+            renderer.text(400, 290, text1);
+            renderer.text(400, 250, text2);
         } else {
-            StdDraw.setPenColor(StdDraw.GREEN);
-            StdDraw.filledRectangle(400, 270, 400, 70);
-            StdDraw.setPenColor(StdDraw.WHITE);
-            StdDraw.setFont(new Font("Courier New", Font.BOLD, 30));
-            StdDraw.text(400, 300, text1);
-            StdDraw.text(400, 260, text2);
-            StdDraw.setFont(new Font("Courier New", Font.BOLD, 15));
-            StdDraw.text(400, 230, text3);
-        }
-        StdDraw.show();
+            renderer.setPenColor(Color.GREEN);
+            renderer.filledRectangle(400, 270, 400, 70);
+            renderer.setPenColor(Color.WHITE);
+            renderer.setFont(BANNER_THREE_LINE_FONT);
+            renderer.text(400, 300, text1);
+            renderer.text(400, 260, text2);
+            renderer.setFont(BANNER_DETAIL_FONT);
+            renderer.text(400, 230, text3);
+        }
     }
 }
\ No newline at end of file
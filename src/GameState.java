@@ -0,0 +1,26 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * The states the game moves through, driven by the main loop.
+ *
+ * Banners are timed states instead of pauses, so the loop keeps running
+ * and drawing while they are shown.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+/**
+ * Represents what the game is currently doing.
+ */
+public enum GameState {
+    // The player is playing a stage
+    PLAYING,
+    // A stage was cleared and the banner is shown before the next stage
+    STAGE_BANNER,
+    // The reset banner is shown before the game restarts from the first stage
+    RESETTING,
+    // All stages are cleared and the game waits for the player to play again or quit
+    COMPLETED
+}
@@ -0,0 +1,169 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Plays back a ghost file written by GhostTrace.
+ *
+ * The file stays open while the ghost runs and is read through a small
+ * buffer that is refilled every few hundred ticks, so a long trace never has
+ * to fit in memory and a race with hundreds of ghosts holds only a few
+ * kilobytes per ghost. Advancing a tick decodes one four-byte sample, drawing
+ * one reuses the shared translucent sprite. Neither allocates.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming playback of one recorded stage attempt.
+ */
+public class Ghost {
+    private static final int BUFFER_BYTES = 4096;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final String playerName;
+    private final int ticks;
+    private int tick = 0;
+    private boolean finished = false;
+
+    // Position of the current and the previous tick, for interpolation
+    private double x;
+    private double y;
+    private double previousX;
+    private double previousY;
+    private int facing;
+
+    /**
+     * Opens a ghost file and reads its header. The ghost appears with its first advance,
+     * on the first tick of the stage.
+     *
+     * @param path Path of the ghost file
+     * @throws IOException If the file cannot be read or is not a ghost file
+     */
+    public Ghost(String path) throws IOException {
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        try {
+            buffer.limit(0);
+            fill(14);
+            if (buffer.getInt() != GhostTrace.MAGIC || buffer.getShort() != GhostTrace.VERSION) {
+                throw new IOException("Not a ghost file: " + path);
+            }
+            buffer.getInt();  // Stage number, the file's directory already says which stage it is for
+            ticks = buffer.getInt();
+            fill(2);
+            byte[] name = new byte[buffer.getShort() & 0xFFFF];
+            fill(name.length);
+            buffer.get(name);
+            playerName = new String(name, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Makes sure the buffer holds at least the given number of unread bytes.
+     *
+     * @param bytes Number of bytes needed
+     * @throws IOException If the file ends first
+     */
+    private void fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (bytes > BUFFER_BYTES) {
+            throw new IOException("Ghost file header is too long");
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Ghost file is truncated");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Moves the ghost to its next tick. Once the trace ends the ghost is finished and its file closed.
+     */
+    public void advance() {
+        if (finished) {
+            return;
+        }
+        if (tick == ticks) {
+            close();
+            return;
+        }
+        try {
+            fill(GhostTrace.SAMPLE_BYTES);
+        } catch (IOException e) {
+            close();
+            return;
+        }
+        int packedX = buffer.getShort();
+        previousX = x;
+        previousY = y;
+        x = (packedX & 0x7FFF) / GhostTrace.SCALE;
+        y = buffer.getShort() / GhostTrace.SCALE;
+        facing = packedX >>> 15 & 1;
+        if (tick == 0) {
+            previousX = x;
+            previousY = y;
+        }
+        tick++;
+    }
+
+    /**
+     * Draws the ghost between its previous and current tick positions.
+     *
+     * @param renderer Target of the frame
+     * @param sprites Translucent sprites indexed by facing
+     * @param alpha Fraction of the next tick that has elapsed, from 0 to 1
+     */
+    public void draw(Renderer renderer, Sprite[] sprites, double alpha) {
+        if (tick > 0 && !finished) {
+            sprites[facing].draw(renderer, previousX + (x - previousX) * alpha, previousY + (y - previousY) * alpha);
+        }
+    }
+
+    /**
+     * @return Whether the trace has ended
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return The number of ticks the recorded attempt took
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return The name of the player who recorded the ghost
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * Stops the ghost and closes its file.
+     */
+    public void close() {
+        finished = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close ghost file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Races the player against the best runs stored on disk.
+ *
+ * Ghost files live in one directory per stage, one file per player, e.g.
+ * ~/.onlylevel/ghosts/stage-3/devin.ogh. When a stage starts, every ghost of
+ * that stage is opened and then advanced one sample per tick alongside the
+ * player, so everybody starts together. Shared files from other players
+ * race as well. Meanwhile the player's own attempt is traced, and when it
+ * reaches the exit faster than the stored best it replaces that file.
+ *
+ * All ghosts are drawn with one translucent variant of the elephant sprite
+ * from SpriteCache. The work per ghost is a buffered read per tick and a
+ * draw of an already prepared image per frame.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Ghosts of the current stage and the trace of the running attempt.
+ */
+public class GhostRace {
+    private static final int MAX_GHOSTS = 256;
+    private static final double GHOST_ALPHA = 0.35;
+    private static final int MAX_NAME_LENGTH = 32;
+
+    private final String directory;
+    private final String playerName;
+    private final GhostTrace trace = new GhostTrace();
+    private final Ghost[] ghosts = new Ghost[MAX_GHOSTS];
+    private final Sprite[] sprites = new Sprite[2];
+    private int ghostCount = 0;
+    private int stageNumber;
+
+    /**
+     * Creates a race that reads and writes ghosts below a directory.
+     *
+     * @param directory Directory holding one subdirectory of ghosts per stage
+     * @param playerName Name the player's own ghosts are saved under
+     */
+    public GhostRace(String directory, String playerName) {
+        this.directory = directory;
+        String name = playerName.replaceAll("[^A-Za-z0-9_-]", "_");
+        this.playerName = name.isEmpty() ? "player" : name.substring(0, Math.min(name.length(), MAX_NAME_LENGTH));
+    }
+
+    /**
+     * Prepares the translucent sprites from the player's, so the first frame with ghosts does not stall.
+     *
+     * @param player The player the ghosts look like
+     */
+    public void loadSprites(Player player) {
+        sprites[Player.FACING_RIGHT] = player.getSprite(Player.FACING_RIGHT, GHOST_ALPHA);
+        sprites[Player.FACING_LEFT] = player.getSprite(Player.FACING_LEFT, GHOST_ALPHA);
+    }
+
+    /**
+     * Prepares the translucent sprites for their first draw.
+     *
+     * @param renderer Target of the frames
+     */
+    public void prepareSprites(Renderer renderer) {
+        for (Sprite sprite : sprites) {
+            if (sprite != null) {
+                renderer.prepare(sprite);
+            }
+        }
+    }
+
+    /**
+     * Closes the ghosts of the previous stage, opens those of the given one
+     * and starts tracing a new attempt.
+     *
+     * @param stage The stage that starts
+     */
+    public void startStage(Stage stage) {
+        close();
+        trace.clear();
+        stageNumber = stage.getStageNumber();
+
+        File[] files = getStageDirectory().listFiles((dir, name) -> name.endsWith(".ogh"));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (ghostCount == MAX_GHOSTS) {
+                break;
+            }
+            try {
+                ghosts[ghostCount] = new Ghost(file.getPath());
+                ghostCount++;
+            } catch (IOException e) {
+                System.err.println("Skipping ghost " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Traces the player's position of this tick and moves every ghost one tick forward.
+     *
+     * @param player The player
+     */
+    public void tick(Player player) {
+        trace.add(player.getX(), player.getY(), player.getFacing());
+        for (int i = 0; i < ghostCount; i++) {
+            ghosts[i].advance();
+        }
+    }
+
+    /**
+     * Ends the attempt at the exit and saves it if it beats the player's stored best.
+     * Attempts too long to be traced in full are not saved. A failure to save is reported
+     * but does not stop the game.
+     */
+    public void finishStage() {
+        if (trace.isTruncated()) {
+            return;
+        }
+        File best = new File(getStageDirectory(), playerName + ".ogh");
+        try {
+            if (best.exists() && GhostTrace.readTicks(best.getPath()) <= trace.getTicks()) {
+                return;
+            }
+        } catch (IOException e) {
+            System.err.println("Replacing unreadable ghost " + best + ": " + e.getMessage());
+        }
+
+        // Written next to the old best and moved over it, so a crash never leaves half a file
+        try {
+            getStageDirectory().mkdirs();
+            File temp = new File(getStageDirectory(), playerName + ".ogh.tmp");
+            trace.write(new FileOutputStream(temp), stageNumber, playerName);
+            Files.move(temp.toPath(), best.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Ghost not saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Draws every running ghost.
+     *
+     * @param renderer Target of the frame
+     * @param alpha Fraction of the next tick that has elapsed, from 0 to 1
+     */
+    public void draw(Renderer renderer, double alpha) {
+        for (int i = 0; i < ghostCount; i++) {
+            ghosts[i].draw(renderer, sprites, alpha);
+        }
+    }
+
+    /**
+     * Closes the ghosts of the current stage.
+     */
+    public void close() {
+        for (int i = 0; i < ghostCount; i++) {
+            ghosts[i].close();
+            ghosts[i] = null;
+        }
+        ghostCount = 0;
+    }
+
+    /**
+     * @return The directory of the current stage's ghosts
+     */
+    private File getStageDirectory() {
+        return new File(directory, "stage-" + (stageNumber + 1));
+    }
+
+    /**
+     * @return The number of ghosts racing on the current stage
+     */
+    public int getGhostCount() {
+        return ghostCount;
+    }
+}
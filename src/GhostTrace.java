@@ -0,0 +1,119 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Records where the player was on every tick of a stage attempt.
+ *
+ * A ghost file starts with a header holding the stage number, the number of
+ * ticks the attempt took and the player's name. It is followed by one sample
+ * per tick of two shorts: x in 1/8 pixel with the facing in the top bit, and y
+ * in 1/8 pixel. That is 240 bytes per second of play, and a sample can be read
+ * without looking at the ones before it, so Ghost streams files sample by
+ * sample instead of loading them.
+ *
+ * The trace of the running attempt is allocated once for MAX_TICKS, ten
+ * minutes of play, so tracing never allocates during a stage. A longer
+ * attempt is still counted but no longer stored, and is not saved.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Fixed-size in-memory position trace of the running attempt, and the ghost file format.
+ */
+public class GhostTrace {
+    public static final int MAGIC = 0x4F474853;  // "OGHS"
+    public static final int VERSION = 1;
+    public static final int SAMPLE_BYTES = 4;
+    public static final double SCALE = 8;  // Samples per pixel
+    public static final int MAX_TICKS = 10 * 60 * Game.TICKS_PER_SECOND;
+
+    private final short[] samples = new short[2 * MAX_TICKS];
+    private int ticks = 0;
+
+    /**
+     * Appends the position of the player for one tick. Past MAX_TICKS the tick is only counted.
+     *
+     * @param x X-coordinate of the player
+     * @param y Y-coordinate of the player
+     * @param facing Player.FACING_RIGHT or Player.FACING_LEFT
+     */
+    public void add(double x, double y, int facing) {
+        if (ticks >= MAX_TICKS) {
+            ticks++;
+            return;
+        }
+        int packedX = (int) Math.max(0, Math.min(0x7FFF, Math.round(x * SCALE)));
+        int packedY = (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(y * SCALE)));
+        samples[2 * ticks] = (short) (packedX | facing << 15);
+        samples[2 * ticks + 1] = (short) packedY;
+        ticks++;
+    }
+
+    /**
+     * Forgets the recorded ticks, keeping the storage for the next attempt.
+     */
+    public void clear() {
+        ticks = 0;
+    }
+
+    /**
+     * @return The number of recorded ticks
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return Whether the attempt ran past MAX_TICKS, so not all of it is stored
+     */
+    public boolean isTruncated() {
+        return ticks > MAX_TICKS;
+    }
+
+    /**
+     * Writes the trace as a ghost file. The trace must not be truncated.
+     *
+     * @param out Stream receiving the file, closed afterwards
+     * @param stageNumber Number of the stage the trace was recorded on
+     * @param playerName Name of the player
+     * @throws IOException If the file cannot be written
+     */
+    public void write(OutputStream out, int stageNumber, String playerName) throws IOException {
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+            data.writeInt(MAGIC);
+            data.writeShort(VERSION);
+            data.writeInt(stageNumber);
+            data.writeInt(ticks);
+            data.writeUTF(playerName);
+            for (int i = 0; i < 2 * ticks; i++) {
+                data.writeShort(samples[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads only the tick count from the header of a ghost file.
+     *
+     * @param path Path of the ghost file
+     * @return The number of ticks of the stored attempt
+     * @throws IOException If the file cannot be read or is not a ghost file
+     */
+    public static int readTicks(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(path))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not a ghost file: " + path);
+            }
+            in.readInt();
+            return in.readInt();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Collects keyboard and mouse events and hands them to the game one tick at a time.
+ *
+ * AWT delivers events on the event dispatch thread, the game reads them on the
+ * main thread. Events go through a single-producer single-consumer ring buffer
+ * of primitive arrays, so neither side ever locks or allocates. Events are
+ * not stamped: everything that arrived since the last tick applies to the
+ * next one, which is the first tick simulated after the event. When a frame
+ * catches up several ticks, the events land in the first of them. A key that
+ * is pressed and released between two ticks still counts as held for one
+ * tick, so short taps are never lost.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import javax.swing.JLabel;
+import java.awt.AWTEvent;
+import java.awt.Canvas;
+import java.awt.Component;
+import java.awt.Toolkit;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+
+/**
+ * Lock-free input event queue drained once per tick.
+ */
+public class InputQueue {
+    // Event types
+    private static final int KEY_PRESSED = 0;
+    private static final int KEY_RELEASED = 1;
+    private static final int MOUSE_PRESSED = 2;
+
+    private static final int CAPACITY = 1024;  // Power of two
+    private static final int KEY_COUNT = 256;
+    private static final int MAX_CLICKS = 16;
+
+    // Maps the drawing area back to world coordinates, only used on the event thread
+    private final Viewport viewport;
+
+    // Ring buffer written by the event thread and read by the game thread
+    private final int[] types = new int[CAPACITY];
+    private final int[] codes = new int[CAPACITY];
+    private final double[] xs = new double[CAPACITY];
+    private final double[] ys = new double[CAPACITY];
+    private volatile long head = 0;
+    private volatile long tail = 0;
+
+    // State seen by the game during the current tick
+    private final boolean[] held = new boolean[KEY_COUNT];
+    private final boolean[] tapped = new boolean[KEY_COUNT];
+    private final double[] clickXs = new double[MAX_CLICKS];
+    private final double[] clickYs = new double[MAX_CLICKS];
+    private int clickCount = 0;
+    private int clickIndex = 0;
+    private double clickX;
+    private double clickY;
+
+    /**
+     * Constructs an input queue for a drawing area with the given world size.
+     *
+     * @param worldWidth Width of the drawing area in world units
+     * @param worldHeight Height of the drawing area in world units
+     */
+    public InputQueue(double worldWidth, double worldHeight) {
+        this.viewport = new Viewport(worldWidth, worldHeight);
+    }
+
+    /**
+     * Starts listening to key and mouse events of the whole application.
+     */
+    public void install() {
+        Toolkit.getDefaultToolkit().addAWTEventListener(this::onEvent,
+                AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK);
+    }
+
+    /**
+     * Receives an AWT event on the event dispatch thread.
+     *
+     * @param event The event
+     */
+    private void onEvent(AWTEvent event) {
+        if (event.getID() == KeyEvent.KEY_PRESSED) {
+            push(KEY_PRESSED, ((KeyEvent) event).getKeyCode(), 0, 0);
+        } else if (event.getID() == KeyEvent.KEY_RELEASED) {
+            push(KEY_RELEASED, ((KeyEvent) event).getKeyCode(), 0, 0);
+        } else if (event.getID() == MouseEvent.MOUSE_PRESSED) {
+            // StdDraw draws onto a JLabel, Java2DRenderer onto a Canvas, clicks elsewhere are not on the map
+            MouseEvent mouse = (MouseEvent) event;
+            Component component = mouse.getComponent();
+            boolean onDrawing = component instanceof JLabel || component instanceof Canvas;
+            if (onDrawing && component.getWidth() > 0 && component.getHeight() > 0) {
+                // The renderer fits the world into the component the same way, bars included
+                viewport.resize(component.getWidth(), component.getHeight());
+                double x = viewport.toWorldX(mouse.getX());
+                double y = viewport.toWorldY(mouse.getY());
+                if (viewport.contains(x, y)) {
+                    push(MOUSE_PRESSED, 0, x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds an event for the next tick to be simulated. Called by a single producer thread.
+     * If the game has stopped reading and the buffer is full, the event is dropped.
+     *
+     * @param type Event type
+     * @param code Key code for key events
+     * @param x World x-coordinate for mouse events
+     * @param y World y-coordinate for mouse events
+     */
+    private void push(int type, int code, double x, double y) {
+        long t = tail;
+        if (t - head >= CAPACITY) {
+            return;
+        }
+        int slot = (int) (t & (CAPACITY - 1));
+        types[slot] = type;
+        codes[slot] = code;
+        xs[slot] = x;
+        ys[slot] = y;
+        tail = t + 1;  // Publishes the slot to the game thread
+    }
+
+    /**
+     * Starts the next tick and applies every event that arrived since the last one.
+     * Taps and clicks from the previous tick are cleared first.
+     */
+    public void beginTick() {
+        for (int code = 0; code < KEY_COUNT; code++) {
+            tapped[code] = false;
+        }
+        clickCount = 0;
+        clickIndex = 0;
+
+        long h = head;
+        long t = tail;
+        while (h < t) {
+            int slot = (int) (h & (CAPACITY - 1));
+            apply(types[slot], codes[slot], xs[slot], ys[slot]);
+            h++;
+        }
+        head = h;  // Frees the slots for the event thread
+    }
+
+    /**
+     * Applies one event to the state of the current tick.
+     *
+     * @param type Event type
+     * @param code Key code for key events
+     * @param x World x-coordinate for mouse events
+     * @param y World y-coordinate for mouse events
+     */
+    private void apply(int type, int code, double x, double y) {
+        if (type == MOUSE_PRESSED) {
+            if (clickCount < MAX_CLICKS) {
+                clickXs[clickCount] = x;
+                clickYs[clickCount] = y;
+                clickCount++;
+            }
+            return;
+        }
+        if (code < 0 || code >= KEY_COUNT) {
+            return;
+        }
+        if (type == KEY_PRESSED) {
+            held[code] = true;
+            tapped[code] = true;
+        } else if (type == KEY_RELEASED) {
+            held[code] = false;
+        }
+    }
+
+    /**
+     * Checks whether a key is held during the current tick, or was tapped since the last one.
+     *
+     * @param keyCode The key code
+     * @return true if the key counts as pressed for this tick
+     */
+    public boolean isKeyDown(int keyCode) {
+        if (keyCode < 0 || keyCode >= KEY_COUNT) {
+            return false;
+        }
+        return held[keyCode] || tapped[keyCode];
+    }
+
+    /**
+     * Moves to the next mouse click of the current tick.
+     *
+     * @return true if there was another click, readable through getClickX and getClickY
+     */
+    public boolean nextClick() {
+        if (clickIndex >= clickCount) {
+            return false;
+        }
+        clickX = clickXs[clickIndex];
+        clickY = clickYs[clickIndex];
+        clickIndex++;
+        return true;
+    }
+
+    /**
+     * @return The world x-coordinate of the current click
+     */
+    public double getClickX() {
+        return clickX;
+    }
+
+    /**
+     * @return The world y-coordinate of the current click
+     */
+    public double getClickY() {
+        return clickY;
+    }
+}
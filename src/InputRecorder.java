@@ -0,0 +1,162 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Records the input of a run as a compact binary stream.
+ *
+ * The header stores the recording version, the tick rate and every stage with
+ * its resolved parameters and rules. The body stores the input of every tick (the movement bits
+ * of Map and the action bits of Game), run-length encoded as the input
+ * followed by a repeat count, both variable-length. Holding a key for a minute costs two or
+ * three bytes, so multi-hour sessions stay small. Replay reads the format back.
+ *
+ * The game closes its recording from a shutdown hook, which can run while
+ * the main loop is still recording a tick, so recording and closing are
+ * synchronized. Ticks recorded after close() are ignored.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+
+/**
+ * Writes per-tick input to a recording file.
+ */
+public class InputRecorder {
+    public static final int MAGIC = 0x4F4C5250;  // "OLRP"
+    public static final int VERSION = 1;
+
+    private final DataOutputStream out;
+    private int runValue = -1;
+    private long runLength = 0;
+    private boolean failed = false;
+    private boolean closed = false;
+
+    /**
+     * Starts a recording and writes its header.
+     *
+     * @param out Stream receiving the recording
+     * @param stages The stages of the recorded game
+     * @param ticksPerSecond Simulation rate of the recorded game
+     * @throws IOException If the header cannot be written
+     */
+    public InputRecorder(OutputStream out, ArrayList<Stage> stages, int ticksPerSecond) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeShort(VERSION);
+        this.out.writeInt(ticksPerSecond);
+        this.out.writeInt(stages.size());
+        for (Stage stage : stages) {
+            StageRules rules = stage.getRules();
+            this.out.writeDouble(rules.getGravity());
+            this.out.writeDouble(rules.getVelocityX());
+            this.out.writeDouble(rules.getVelocityY());
+            this.out.writeInt(stage.getStageNumber());
+            this.out.writeInt(rules.getRightCode());
+            this.out.writeInt(rules.getLeftCode());
+            this.out.writeInt(rules.getUpCode());
+            this.out.writeBoolean(rules.isAutoBounce());
+            this.out.writeInt(rules.getNeededPress());
+            this.out.writeBoolean(rules.isFlipSprite());
+            this.out.writeUTF(stage.getClue());
+            this.out.writeUTF(stage.getHelp());
+        }
+    }
+
+    /**
+     * Opens a new recording file.
+     *
+     * @param path Path of the file to create
+     * @param stages The stages of the recorded game
+     * @param ticksPerSecond Simulation rate of the recorded game
+     * @return The recorder
+     * @throws IOException If the file cannot be created
+     */
+    public static InputRecorder open(String path, ArrayList<Stage> stages, int ticksPerSecond) throws IOException {
+        return new InputRecorder(new FileOutputStream(path), stages, ticksPerSecond);
+    }
+
+    /**
+     * Records the input of one tick. A write failure stops the recording but not the game.
+     *
+     * @param inputs Bitmask of movement and action bits
+     */
+    public synchronized void record(int inputs) {
+        if (failed || closed) {
+            return;
+        }
+        if (inputs == runValue) {
+            runLength++;
+            return;
+        }
+        try {
+            flushRun();
+        } catch (IOException e) {
+            fail(e);
+        }
+        runValue = inputs;
+        runLength = 1;
+    }
+
+    /**
+     * Writes the pending run and closes the file. Later calls do nothing.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!failed) {
+                flushRun();
+            }
+            out.close();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writes the current run as its input and repeat count.
+     *
+     * @throws IOException If the run cannot be written
+     */
+    private void flushRun() throws IOException {
+        if (runLength == 0) {
+            return;
+        }
+        writeVarLong(runValue);
+        writeVarLong(runLength);
+        runLength = 0;
+    }
+
+    /**
+     * Writes a value 7 bits per byte, low bits first, the high bit marking that more follow.
+     *
+     * @param value The non-negative value
+     * @throws IOException If the value cannot be written
+     */
+    private void writeVarLong(long value) throws IOException {
+        while (value >= 0x80) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Stops recording after a write failure.
+     *
+     * @param e The failure
+     */
+    private void fail(IOException e) {
+        failed = true;
+        System.err.println("Recording stopped: " + e.getMessage());
+    }
+}
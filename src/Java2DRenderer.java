@@ -0,0 +1,359 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Renderer that draws actively onto a Canvas with a BufferStrategy.
+ *
+ * The game loop owns the frame: clear() takes the back buffer of the
+ * strategy, every draw call goes straight to it and show() flips it to the
+ * screen, so no repaint request ever waits on the event dispatch thread.
+ *
+ * The window can have any size or cover the whole screen. A Viewport fits
+ * the world into the canvas, and everything that depends on the scale is
+ * prepared when the canvas size or the display scaling changes, not per
+ * frame: sprites are rendered at the pixel size they are shown at and copied
+ * into VolatileImages, which the graphics pipeline can keep in video memory,
+ * and every font is derived at its screen size together with its metrics,
+ * so HUD text is laid out for the resolution once. When the pipeline loses
+ * an image it is restored on the next draw. Shapes are snapped to whole
+ * pixels and drawn with the int methods of Graphics.
+ *
+ * With vsync the strategy asks for page flipping, which the system ties to
+ * the display refresh where it can, and show() syncs the toolkit so the frame
+ * reaches the screen before the loop starts waiting for the next one.
+ * Java offers no portable vsync switch for a window, so on systems that only
+ * blit the pacing of the game loop does the rest.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import javax.swing.JFrame;
+import javax.swing.WindowConstants;
+import java.awt.AWTException;
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.ImageCapabilities;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.Transparency;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.IdentityHashMap;
+
+/**
+ * Java2D backend of Renderer with page flipping, any window size and accelerated sprites.
+ */
+public class Java2DRenderer implements Renderer {
+    private static final Font DEFAULT_FONT = new Font("SansSerif", Font.PLAIN, 16);
+    private static final float OUTLINE_WIDTH = 2;
+    private static final double SCREEN_SHARE = 0.85;  // Largest part of the screen a new window covers
+
+    private final boolean vsync;
+    private final Canvas canvas;
+    private final BufferStrategy strategy;
+    private final Viewport viewport;
+    private Graphics2D graphics;  // Back buffer of the frame being drawn, null between frames
+    private Color penColor = Color.BLACK;
+    private Font font = DEFAULT_FONT;
+
+    // Prepared for the current canvas size and display scaling
+    private double deviceScale = 0;  // Device pixels per canvas unit, 2 on a display scaled to 200%
+    private BasicStroke outline;
+    private final IdentityHashMap<Sprite, VolatileImage> accelerated = new IdentityHashMap<>();
+    private final IdentityHashMap<Font, Font> scaledFonts = new IdentityHashMap<>();
+    private final IdentityHashMap<Font, FontMetrics> fontMetrics = new IdentityHashMap<>();
+    private FontMetrics metrics;  // Metrics of the current font at its screen size
+
+    /**
+     * Opens a window showing a world of the given size and sets up its buffer strategy.
+     * A window starts at the largest whole multiple of the world size that fits the screen
+     * comfortably and can be resized freely; full screen covers the whole screen.
+     *
+     * @param title Title of the window
+     * @param worldWidth Width of the world
+     * @param worldHeight Height of the world
+     * @param vsync Whether to ask for page flipping and sync every presented frame
+     * @param fullScreen Whether to cover the whole screen instead of opening a window
+     */
+    public Java2DRenderer(String title, int worldWidth, int worldHeight, boolean vsync, boolean fullScreen) {
+        this.vsync = vsync;
+        this.viewport = new Viewport(worldWidth, worldHeight);
+
+        JFrame frame = new JFrame(title);
+        GraphicsDevice device = frame.getGraphicsConfiguration().getDevice();
+        Rectangle screen = frame.getGraphicsConfiguration().getBounds();
+        int factor = (int) Math.max(1, Math.floor(Math.min(screen.width * SCREEN_SHARE / worldWidth,
+                screen.height * SCREEN_SHARE / worldHeight)));
+
+        canvas = new Canvas();
+        canvas.setPreferredSize(new Dimension(worldWidth * factor, worldHeight * factor));
+        canvas.setBackground(Color.BLACK);
+        canvas.setIgnoreRepaint(true);
+        canvas.setFocusable(true);
+
+        frame.setIgnoreRepaint(true);
+        frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        frame.add(canvas);
+        if (fullScreen) {
+            frame.setUndecorated(true);
+            frame.setResizable(false);
+            if (device.isFullScreenSupported()) {
+                device.setFullScreenWindow(frame);
+            } else {
+                frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+                frame.setVisible(true);
+            }
+        } else {
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+        }
+        canvas.requestFocus();
+
+        strategy = createStrategy();
+    }
+
+    /**
+     * Creates the double-buffered strategy of the canvas, with page flipping when vsync is
+     * wanted and the system offers it.
+     *
+     * @return The buffer strategy
+     */
+    private BufferStrategy createStrategy() {
+        if (vsync) {
+            try {
+                canvas.createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(true),
+                        new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED));
+                return canvas.getBufferStrategy();
+            } catch (AWTException e) {
+                System.err.println("Page flipping unavailable, presenting by copying: " + e.getMessage());
+            }
+        }
+        canvas.createBufferStrategy(2);
+        return canvas.getBufferStrategy();
+    }
+
+    /**
+     * Returns the back buffer of the current frame, taking it from the strategy at the start of a frame.
+     *
+     * @return The graphics of the frame
+     */
+    private Graphics2D graphics() {
+        if (graphics == null) {
+            fitCanvas();
+            graphics = (Graphics2D) strategy.getDrawGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setStroke(outline);
+            graphics.setColor(penColor);
+            useFont(graphics, font);
+        }
+        return graphics;
+    }
+
+    /**
+     * Fits the world to the current canvas. When the canvas was resized or moved to a display
+     * with other scaling, everything prepared for the old size is dropped and is prepared again
+     * at the new size the first time it is drawn.
+     */
+    private void fitCanvas() {
+        double currentDeviceScale = canvas.getGraphicsConfiguration().getDefaultTransform().getScaleX();
+        boolean resized = viewport.resize(Math.max(1, canvas.getWidth()), Math.max(1, canvas.getHeight()));
+        if (resized || currentDeviceScale != deviceScale) {
+            deviceScale = currentDeviceScale;
+            outline = new BasicStroke((float) (OUTLINE_WIDTH * viewport.getScale()));
+            for (VolatileImage image : accelerated.values()) {
+                image.flush();
+            }
+            accelerated.clear();
+            scaledFonts.clear();
+            fontMetrics.clear();
+        }
+    }
+
+    /**
+     * Fills the bars around the world with black and the world with white.
+     */
+    @Override
+    public void clear() {
+        Graphics2D g = graphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, viewport.getScreenWidth(), viewport.getScreenHeight());
+        g.setColor(Color.WHITE);
+        fillScreenRect(g, 0, viewport.getWorldHeight(), viewport.getWorldWidth(), 0);
+        g.setColor(penColor);
+    }
+
+    /**
+     * Flips the frame to the screen. A frame whose buffer was lost while drawing is dropped,
+     * the next one is drawn into the restored buffer.
+     */
+    @Override
+    public void show() {
+        if (graphics == null) {
+            return;
+        }
+        graphics.dispose();
+        graphics = null;
+        if (!strategy.contentsLost()) {
+            strategy.show();
+        }
+        if (vsync) {
+            Toolkit.getDefaultToolkit().sync();
+        }
+    }
+
+    @Override
+    public void setPenColor(Color color) {
+        penColor = color;
+        graphics().setColor(color);
+    }
+
+    @Override
+    public void setFont(Font newFont) {
+        font = newFont;
+        useFont(graphics(), newFont);
+    }
+
+    /**
+     * Switches the graphics to a font at its screen size, deriving it on first use at this size.
+     *
+     * @param g The graphics of the frame
+     * @param worldFont The font with its size in world units
+     */
+    private void useFont(Graphics2D g, Font worldFont) {
+        Font scaled = scaledFonts.get(worldFont);
+        if (scaled == null) {
+            scaled = worldFont.deriveFont((float) (worldFont.getSize2D() * viewport.getScale()));
+            scaledFonts.put(worldFont, scaled);
+            fontMetrics.put(worldFont, g.getFontMetrics(scaled));
+        }
+        g.setFont(scaled);
+        metrics = fontMetrics.get(worldFont);
+    }
+
+    @Override
+    public void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
+        fillScreenRect(graphics(), x - halfWidth, y + halfHeight, x + halfWidth, y - halfHeight);
+    }
+
+    /**
+     * Fills the whole pixels covered by a world rectangle.
+     *
+     * @param g The graphics of the frame
+     * @param left Left edge in world units
+     * @param top Top edge in world units
+     * @param right Right edge in world units
+     * @param bottom Bottom edge in world units
+     */
+    private void fillScreenRect(Graphics2D g, double left, double top, double right, double bottom) {
+        int screenLeft = (int) Math.round(viewport.toScreenX(left));
+        int screenTop = (int) Math.round(viewport.toScreenY(top));
+        g.fillRect(screenLeft, screenTop, (int) Math.round(viewport.toScreenX(right)) - screenLeft,
+                (int) Math.round(viewport.toScreenY(bottom)) - screenTop);
+    }
+
+    @Override
+    public void rectangle(double x, double y, double halfWidth, double halfHeight) {
+        int left = (int) Math.round(viewport.toScreenX(x - halfWidth));
+        int top = (int) Math.round(viewport.toScreenY(y + halfHeight));
+        graphics().drawRect(left, top, (int) Math.round(viewport.toScreenX(x + halfWidth)) - left,
+                (int) Math.round(viewport.toScreenY(y - halfHeight)) - top);
+    }
+
+    @Override
+    public void filledSquare(double x, double y, double halfLength) {
+        filledRectangle(x, y, halfLength, halfLength);
+    }
+
+    @Override
+    public void text(double x, double y, String text) {
+        Graphics2D g = graphics();
+        g.drawString(text, (float) (viewport.toScreenX(x) - metrics.stringWidth(text) / 2.0),
+                (float) (viewport.toScreenY(y) + metrics.getDescent()));
+    }
+
+    @Override
+    public void textLeft(double x, double y, String text) {
+        Graphics2D g = graphics();
+        g.drawString(text, (float) viewport.toScreenX(x), (float) (viewport.toScreenY(y) + metrics.getDescent()));
+    }
+
+    @Override
+    public void text(double x, double y, TextBuffer text) {
+        Graphics2D g = graphics();
+        int width = metrics.charsWidth(text.getChars(), 0, text.length());
+        g.drawChars(text.getChars(), 0, text.length(), (int) Math.round(viewport.toScreenX(x) - width / 2.0),
+                (int) Math.round(viewport.toScreenY(y) + metrics.getDescent()));
+    }
+
+    @Override
+    public void textLeft(double x, double y, TextBuffer text) {
+        Graphics2D g = graphics();
+        g.drawChars(text.getChars(), 0, text.length(), (int) Math.round(viewport.toScreenX(x)),
+                (int) Math.round(viewport.toScreenY(y) + metrics.getDescent()));
+    }
+
+    @Override
+    public void picture(double x, double y, Sprite sprite) {
+        Graphics2D g = graphics();
+        VolatileImage image = accelerate(sprite);
+        g.drawImage(image, (int) Math.round(viewport.toScreenX(x) - image.getWidth() / 2.0),
+                (int) Math.round(viewport.toScreenY(y) - image.getHeight() / 2.0), null);
+    }
+
+    /**
+     * Renders the sprite at the current size of the canvas and copies it to video memory.
+     */
+    @Override
+    public void prepare(Sprite sprite) {
+        if (graphics == null) {
+            fitCanvas();
+        }
+        accelerate(sprite);
+    }
+
+    /**
+     * Returns the video memory copy of a sprite at its size on the canvas, creating or
+     * restoring it when needed. On a scaled display the image is backed by more device
+     * pixels than canvas units, so the sprite is rendered at the device pixel size.
+     *
+     * @param sprite The sprite
+     * @return The accelerated image, valid for this frame
+     */
+    private VolatileImage accelerate(Sprite sprite) {
+        GraphicsConfiguration configuration = canvas.getGraphicsConfiguration();
+        VolatileImage image = accelerated.get(sprite);
+        int status = image == null ? VolatileImage.IMAGE_INCOMPATIBLE : image.validate(configuration);
+        if (status == VolatileImage.IMAGE_OK) {
+            return image;
+        }
+        int width = Math.max(1, (int) Math.round(sprite.getWidth() * viewport.getScale()));
+        int height = Math.max(1, (int) Math.round(sprite.getHeight() * viewport.getScale()));
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+            if (image != null) {
+                image.flush();
+            }
+            image = configuration.createCompatibleVolatileImage(width, height, Transparency.TRANSLUCENT);
+            accelerated.put(sprite, image);
+        }
+        BufferedImage pixels = sprite.render(viewport.getScale() * deviceScale);
+        Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(pixels, 0, 0, width, height, null);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,587 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Local speedrun leaderboard: every finished run, ranked by total time and by stage.
+ *
+ * Runs are appended to a log and never rewritten. Each record holds the
+ * time it finished, the deaths, one split per stage and the player's name,
+ * followed by a CRC32 of those bytes. A run written only partly because the
+ * game crashed fails its length or checksum test on the next start, and the
+ * log is cut back to the last complete run.
+ *
+ * Next to the log is an index with one sorted column for the total time and
+ * one per stage. An entry is a single long, the ticks in the high half and
+ * the record's log offset in the low half, so sorting the longs ranks the
+ * runs and ties go to the earlier run. The index is memory-mapped, so opening
+ * it costs the same with ten or a million runs, and a top-k query reads k
+ * entries plus k records. The index remembers how much of the log it covers.
+ * Runs after that point are read from the log on start and kept in small
+ * sorted arrays that queries merge in, until there are enough of them to
+ * be worth rewriting the index.
+ *
+ * Usage: java Leaderboard [directory] [stage]
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only run log with a memory-mapped top-k index. Not thread-safe.
+ */
+public class Leaderboard {
+    public static final int LOG_MAGIC = 0x4F4C424C;  // "OLBL"
+    public static final int INDEX_MAGIC = 0x4F4C4249;  // "OLBI"
+    public static final int VERSION = 1;
+    private static final int LOG_HEADER_BYTES = 6;  // Magic and version
+    private static final int INDEX_HEADER_BYTES = 18;  // Magic, version, indexed log length and column count
+    private static final int MAX_PAYLOAD_BYTES = 4096;
+    private static final int MAX_NAME_BYTES = 64;
+    private static final int COMPACT_RUNS = 1024;  // Runs outside the index that trigger a rewrite on open
+
+    private final Path indexPath;
+    private final FileChannel log;
+    private final ByteBuffer scratch = ByteBuffer.allocate(2 + MAX_PAYLOAD_BYTES + 4);
+    private long logLength;
+
+    // Column 0 ranks whole runs, column 1 + s ranks stage s
+    private LongBuffer[] indexed = new LongBuffer[0];
+    private long[][] pending = new long[0][];
+    private int[] pendingCount = new int[0];
+
+    /**
+     * Opens the leaderboard in a directory, creating it when needed, and recovers
+     * the log if the last run was not written completely.
+     *
+     * @param directory Directory holding the log and its index
+     * @return The leaderboard
+     * @throws IOException If the files cannot be read or are not leaderboard files
+     */
+    public static Leaderboard open(String directory) throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        return new Leaderboard(dir.resolve("runs.olb"), dir.resolve("runs.olbi"));
+    }
+
+    /**
+     * Opens the log and its index.
+     *
+     * @param logPath Path of the run log
+     * @param indexPath Path of the index
+     * @throws IOException If the files cannot be read or are not leaderboard files
+     */
+    private Leaderboard(Path logPath, Path indexPath) throws IOException {
+        this.indexPath = indexPath;
+        this.log = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            load();
+        } catch (IOException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks the log header, maps the index and reads the runs the index does not cover.
+     *
+     * @throws IOException If the files cannot be read or are not leaderboard files
+     */
+    private void load() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES);
+        if (log.size() == 0) {
+            header.putInt(LOG_MAGIC).putShort((short) VERSION).flip();
+            writeFully(header, 0);
+            log.force(true);
+            header.clear();
+        }
+        readFully(header, 0);
+        if (header.getInt(0) != LOG_MAGIC || header.getShort(4) != VERSION) {
+            throw new IOException("Not a leaderboard log");
+        }
+
+        long end = scan(mapIndex());
+        if (end < log.size()) {
+            System.err.println("Leaderboard: dropped " + (log.size() - end) + " bytes of an unfinished run");
+            log.truncate(end);
+            log.force(true);
+        }
+        logLength = end;
+        if (pendingCount.length > 0 && pendingCount[0] >= COMPACT_RUNS) {
+            writeIndex();
+        }
+    }
+
+    /**
+     * Maps the index file. A missing or invalid index, or one that covers more than
+     * the log holds, is ignored and the log is indexed from its start.
+     *
+     * @return Log offset up to which the mapped index covers the runs
+     * @throws IOException If the index exists but cannot be read
+     */
+    private long mapIndex() throws IOException {
+        indexed = new LongBuffer[0];
+        if (!Files.exists(indexPath)) {
+            return LOG_HEADER_BYTES;
+        }
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (map.limit() < INDEX_HEADER_BYTES || map.getInt(0) != INDEX_MAGIC || map.getShort(4) != VERSION) {
+            return LOG_HEADER_BYTES;
+        }
+        long indexedLength = map.getLong(6);
+        int columns = map.getInt(14);
+        if (indexedLength < LOG_HEADER_BYTES || indexedLength > log.size() || columns < 0) {
+            return LOG_HEADER_BYTES;
+        }
+
+        LongBuffer[] loaded = new LongBuffer[columns];
+        int position = INDEX_HEADER_BYTES;
+        for (int c = 0; c < columns; c++) {
+            if (position + 4 > map.limit()) {
+                return LOG_HEADER_BYTES;
+            }
+            int count = map.getInt(position);
+            position += 4;
+            if (count < 0 || position + (long) count * 8 > map.limit()) {
+                return LOG_HEADER_BYTES;
+            }
+            loaded[c] = map.slice(position, count * 8).asLongBuffer();
+            position += count * 8;
+        }
+        indexed = loaded;
+        ensureColumns(columns);
+        return indexedLength;
+    }
+
+    /**
+     * Reads the complete runs from an offset to the end of the log and adds them to the
+     * pending columns, sorted once at the end. Stops at the first record that is cut off
+     * or fails its checksum.
+     *
+     * @param start Log offset of the first record
+     * @return Log offset just past the last complete record
+     * @throws IOException If the log cannot be read
+     */
+    private long scan(long start) throws IOException {
+        long position = start;
+        long size = log.size();
+        while (position + 2 <= size) {
+            int length = readRecord(position, size);
+            if (length < 0) {
+                break;
+            }
+            addPending(decode(scratch), position, false);
+            position += 2 + length + 4;
+        }
+        for (int c = 0; c < pending.length; c++) {
+            Arrays.sort(pending[c], 0, pendingCount[c]);
+        }
+        return position;
+    }
+
+    /**
+     * Reads and checks the record at an offset, leaving its payload in scratch.
+     *
+     * @param position Log offset of the record
+     * @param size Number of valid bytes in the log
+     * @return The payload length, or -1 if the record is incomplete or corrupt
+     * @throws IOException If the log cannot be read
+     */
+    private int readRecord(long position, long size) throws IOException {
+        scratch.clear().limit(2);
+        readFully(scratch, position);
+        int length = scratch.getShort(0) & 0xFFFF;
+        if (length > MAX_PAYLOAD_BYTES || position + 2 + length + 4 > size) {
+            return -1;
+        }
+        scratch.clear().limit(length + 4);
+        readFully(scratch, position + 2);
+        CRC32 crc = new CRC32();
+        crc.update(scratch.array(), 0, length);
+        if ((int) crc.getValue() != scratch.getInt(length)) {
+            return -1;
+        }
+        scratch.position(0).limit(length);
+        return length;
+    }
+
+    /**
+     * Appends a finished run to the log and makes it visible to queries.
+     * The run is on disk when this returns.
+     *
+     * @param entry The run
+     * @throws IOException If the run cannot be written
+     */
+    public void record(LeaderboardEntry entry) throws IOException {
+        scratch.clear();
+        scratch.position(2);
+        encode(entry, scratch);
+        int length = scratch.position() - 2;
+        scratch.putShort(0, (short) length);
+        CRC32 crc = new CRC32();
+        crc.update(scratch.array(), 2, length);
+        scratch.putInt((int) crc.getValue());
+        scratch.flip();
+
+        if (logLength + scratch.remaining() > 0xFFFFFFFFL) {
+            throw new IOException("Leaderboard log is full");
+        }
+        writeFully(scratch, logLength);
+        log.force(false);
+        addPending(entry, logLength, true);
+        logLength += 2 + length + 4;
+    }
+
+    /**
+     * Writes the payload of a record.
+     *
+     * @param entry The run
+     * @param out Buffer receiving the payload
+     */
+    private static void encode(LeaderboardEntry entry, ByteBuffer out) {
+        out.putLong(entry.getTimestamp());
+        out.putInt(entry.getDeaths());
+        out.put((byte) entry.getStageCount());
+        for (int s = 0; s < entry.getStageCount(); s++) {
+            out.putInt(entry.getSplit(s));
+        }
+        byte[] name = entry.getPlayerName().getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+        out.putShort((short) nameLength);
+        out.put(name, 0, nameLength);
+    }
+
+    /**
+     * Reads the payload of a record.
+     *
+     * @param in Buffer positioned at the payload
+     * @return The run
+     */
+    private static LeaderboardEntry decode(ByteBuffer in) {
+        long timestamp = in.getLong();
+        int deaths = in.getInt();
+        int[] splits = new int[in.get() & 0xFF];
+        for (int s = 0; s < splits.length; s++) {
+            splits[s] = in.getInt();
+        }
+        byte[] name = new byte[in.getShort() & 0xFFFF];
+        in.get(name);
+        return new LeaderboardEntry(new String(name, StandardCharsets.UTF_8), timestamp, deaths, splits);
+    }
+
+    /**
+     * Adds a run to the pending columns.
+     *
+     * @param entry The run
+     * @param offset Log offset of its record
+     * @param keepSorted Whether to insert at the sorted position, otherwise the caller sorts later
+     */
+    private void addPending(LeaderboardEntry entry, long offset, boolean keepSorted) {
+        ensureColumns(1 + entry.getStageCount());
+        addPending(0, pack(entry.getTotalTicks(), offset), keepSorted);
+        for (int s = 0; s < entry.getStageCount(); s++) {
+            addPending(1 + s, pack(entry.getSplit(s), offset), keepSorted);
+        }
+    }
+
+    /**
+     * Adds an entry to a pending column.
+     *
+     * @param column The column
+     * @param key The packed entry
+     * @param keepSorted Whether to insert at the sorted position or append
+     */
+    private void addPending(int column, long key, boolean keepSorted) {
+        int count = pendingCount[column];
+        if (count == pending[column].length) {
+            pending[column] = Arrays.copyOf(pending[column], Math.max(16, count * 2));
+        }
+        int at = keepSorted ? lowerBound(pending[column], count, key) : count;
+        System.arraycopy(pending[column], at, pending[column], at + 1, count - at);
+        pending[column][at] = key;
+        pendingCount[column]++;
+    }
+
+    /**
+     * Grows the pending columns to at least the given number.
+     *
+     * @param columns Number of columns needed
+     */
+    private void ensureColumns(int columns) {
+        int old = pending.length;
+        if (columns <= old) {
+            return;
+        }
+        pending = Arrays.copyOf(pending, columns);
+        pendingCount = Arrays.copyOf(pendingCount, columns);
+        for (int c = old; c < columns; c++) {
+            pending[c] = new long[16];
+        }
+    }
+
+    /**
+     * Merges the pending runs into a new index, written beside the old one and moved over it
+     * so a crash leaves either index intact, and maps the result.
+     *
+     * @throws IOException If the index cannot be written
+     */
+    public void writeIndex() throws IOException {
+        int columns = pending.length;
+        Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            buffer.putInt(INDEX_MAGIC).putShort((short) VERSION).putLong(logLength).putInt(columns);
+            for (int c = 0; c < columns; c++) {
+                LongBuffer old = c < indexed.length ? indexed[c] : LongBuffer.allocate(0);
+                int oldCount = old.limit();
+                buffer.putInt(oldCount + pendingCount[c]);
+                int i = 0;
+                int j = 0;
+                while (i < oldCount || j < pendingCount[c]) {
+                    if (buffer.remaining() < 8) {
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            out.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                    if (j == pendingCount[c] || (i < oldCount && old.get(i) < pending[c][j])) {
+                        buffer.putLong(old.get(i++));
+                    } else {
+                        buffer.putLong(pending[c][j++]);
+                    }
+                }
+                if (buffer.remaining() < 4) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Arrays.fill(pendingCount, 0);
+        mapIndex();
+    }
+
+    /**
+     * Returns the fastest runs.
+     *
+     * @param k Maximum number of runs
+     * @return Up to k runs, fastest first
+     * @throws IOException If the log cannot be read
+     */
+    public ArrayList<LeaderboardEntry> topRuns(int k) throws IOException {
+        return top(0, k);
+    }
+
+    /**
+     * Returns the runs with the fastest split on one stage.
+     *
+     * @param stage Index of the stage in playing order
+     * @param k Maximum number of runs
+     * @return Up to k runs, fastest split first
+     * @throws IOException If the log cannot be read
+     */
+    public ArrayList<LeaderboardEntry> topStage(int stage, int k) throws IOException {
+        return top(1 + stage, k);
+    }
+
+    /**
+     * Merges the first k entries of the indexed and the pending part of a column.
+     *
+     * @param column The column
+     * @param k Maximum number of runs
+     * @return Up to k runs in column order
+     * @throws IOException If the log cannot be read
+     */
+    private ArrayList<LeaderboardEntry> top(int column, int k) throws IOException {
+        ArrayList<LeaderboardEntry> result = new ArrayList<>();
+        if (column >= pending.length) {
+            return result;
+        }
+        LongBuffer old = column < indexed.length ? indexed[column] : LongBuffer.allocate(0);
+        int i = 0;
+        int j = 0;
+        while (result.size() < k && (i < old.limit() || j < pendingCount[column])) {
+            long key;
+            if (j == pendingCount[column] || (i < old.limit() && old.get(i) < pending[column][j])) {
+                key = old.get(i++);
+            } else {
+                key = pending[column][j++];
+            }
+            if (readRecord(key & 0xFFFFFFFFL, logLength) < 0) {
+                throw new IOException("Leaderboard log does not match its index");
+            }
+            result.add(decode(scratch));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the place a run with the given total time takes: one more than the number
+     * of strictly faster runs.
+     *
+     * @param totalTicks Total time of the run in ticks
+     * @return The 1-based rank
+     */
+    public int rank(int totalTicks) {
+        if (pending.length == 0) {
+            return 1;
+        }
+        long key = pack(totalTicks, 0);
+        int faster = lowerBound(pending[0], pendingCount[0], key);
+        if (indexed.length > 0) {
+            LongBuffer old = indexed[0];
+            int low = 0;
+            int high = old.limit();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (old.get(middle) < key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            faster += low;
+        }
+        return faster + 1;
+    }
+
+    /**
+     * @return The number of recorded runs
+     */
+    public int size() {
+        if (pending.length == 0) {
+            return 0;
+        }
+        return (indexed.length > 0 ? indexed[0].limit() : 0) + pendingCount[0];
+    }
+
+    /**
+     * Closes the log. The index stays valid, runs it does not cover are read again on the next open.
+     *
+     * @throws IOException If the log cannot be closed
+     */
+    public void close() throws IOException {
+        log.close();
+    }
+
+    /**
+     * Packs ticks and a log offset into one sortable index entry.
+     *
+     * @param ticks Time in ticks
+     * @param offset Log offset of the record
+     * @return The packed entry
+     */
+    private static long pack(int ticks, long offset) {
+        return (long) ticks << 32 | offset;
+    }
+
+    /**
+     * @param keys Sorted keys
+     * @param count Number of valid keys
+     * @param key The key to look for
+     * @return Index of the first key not less than the given one
+     */
+    private static int lowerBound(long[] keys, int count, long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Writes a whole buffer to the log.
+     *
+     * @param buffer The bytes to write
+     * @param position Log offset to write at
+     * @throws IOException If the log cannot be written
+     */
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += log.write(buffer, position);
+        }
+    }
+
+    /**
+     * Fills a buffer from the log.
+     *
+     * @param buffer The buffer to fill up to its limit
+     * @param position Log offset to read from
+     * @throws IOException If the log ends first
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = log.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Leaderboard log is truncated");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Prints the ten fastest runs, overall or on one stage.
+     *
+     * @param args Optional directory, default the game's leaderboard, and optional 1-based stage number
+     * @throws IOException If the leaderboard cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Leaderboard leaderboard = Leaderboard.open(args.length > 0 ? args[0]
+                : new File(DevinIsler.getDataDirectory(), "leaderboard").getPath());
+        int stage = args.length > 1 ? Integer.parseInt(args[1]) - 1 : -1;
+        long start = System.nanoTime();
+        ArrayList<LeaderboardEntry> top = stage < 0 ? leaderboard.topRuns(10) : leaderboard.topStage(stage, 10);
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%d runs, top %d %s in %.3f ms%n", leaderboard.size(), top.size(),
+                stage < 0 ? "overall" : "on stage " + (stage + 1), millis);
+        for (int i = 0; i < top.size(); i++) {
+            LeaderboardEntry entry = top.get(i);
+            StringBuilder splits = new StringBuilder();
+            for (int s = 0; s < entry.getStageCount(); s++) {
+                splits.append(s == 0 ? "" : " ").append(LeaderboardEntry.formatTicks(entry.getSplit(s)));
+            }
+            int ticks = stage < 0 ? entry.getTotalTicks() : entry.getSplit(stage);
+            System.out.printf("%3d. %-16s %s  deaths %-3d %s  [%s]%n", i + 1, entry.getPlayerName(),
+                    LeaderboardEntry.formatTicks(ticks), entry.getDeaths(), new Date(entry.getTimestamp()), splits);
+        }
+        leaderboard.close();
+    }
+}
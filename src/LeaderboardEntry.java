@@ -0,0 +1,98 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * One finished run as stored in the leaderboard.
+ *
+ * Times are counted in simulation ticks, like Game.getPlayTicks(), so they
+ * are exact and do not depend on the frame rate. A split is the number of
+ * ticks spent on one stage, from entering it until reaching its exit.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+/**
+ * Finished run with its total time, deaths and per-stage splits.
+ */
+public class LeaderboardEntry {
+    private final String playerName;
+    private final long timestamp;
+    private final int deaths;
+    private final int[] splits;
+    private final int totalTicks;
+
+    /**
+     * Creates an entry. The total time is the sum of the splits.
+     *
+     * @param playerName Name of the player
+     * @param timestamp When the run finished, in milliseconds since the epoch
+     * @param deaths Number of deaths during the run
+     * @param splits Ticks spent on each stage, in playing order
+     */
+    public LeaderboardEntry(String playerName, long timestamp, int deaths, int[] splits) {
+        this.playerName = playerName;
+        this.timestamp = timestamp;
+        this.deaths = deaths;
+        this.splits = splits.clone();
+        int total = 0;
+        for (int split : splits) {
+            total += split;
+        }
+        this.totalTicks = total;
+    }
+
+    /**
+     * @return The name of the player
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * @return When the run finished, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return The number of deaths during the run
+     */
+    public int getDeaths() {
+        return deaths;
+    }
+
+    /**
+     * @return The number of stages the run has splits for
+     */
+    public int getStageCount() {
+        return splits.length;
+    }
+
+    /**
+     * @param stage Index of the stage in playing order
+     * @return The ticks spent on that stage
+     */
+    public int getSplit(int stage) {
+        return splits[stage];
+    }
+
+    /**
+     * @return The ticks of the whole run
+     */
+    public int getTotalTicks() {
+        return totalTicks;
+    }
+
+    /**
+     * Formats a number of ticks as minutes, seconds and hundredths.
+     *
+     * @param ticks Number of ticks
+     * @return The time, e.g. "01:05.25"
+     */
+    public static String formatTicks(int ticks) {
+        long hundredths = (long) ticks * 100 / Game.TICKS_PER_SECOND;
+        return String.format("%02d:%02d.%02d", hundredths / 6000, hundredths / 100 % 60, hundredths % 100);
+    }
+}
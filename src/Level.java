@@ -0,0 +1,232 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Compiled, immutable geometry of the level.
+ *
+ * All stages play on the same layout, so the geometry is compiled once and
+ * shared by every Map. A Map only keeps the state that changes during a
+ * stage, such as the door, the button and the death count. The layout is
+ * read from a level file, see LevelFile. Moving platforms and hazards are
+ * defined here too, and run by the EntitySystem of each Map.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.IOException;
+
+/**
+ * Holds the obstacles, spikes, button, door, pipes and entities of the level.
+ */
+public class Level {
+    private static final String DEFAULT_PATH = "./misc/default.olvl";
+    private static final Level defaultLevel = loadDefault();
+
+    private final int width;
+    private final int height;
+    private final int spawnX;
+    private final int spawnY;
+    private final RectArray obstacles;
+    private final RectArray spikes;
+    private final double[] spikeAngles;
+    private final RectArray button;
+    private final RectArray buttonFloor;
+    private final RectArray door;
+    private final RectArray startPipe;
+    private final RectArray exitPipe;
+    private final EntityArray entities;
+    private final ObstacleGrid obstacleGrid;
+
+    /**
+     * Compiles a level without entities from rectangles in [xLeftDown, yLeftDown, xRightUp, yRightUp] format.
+     *
+     * @param width Width of the level in world units
+     * @param height Height of the level in world units
+     * @param spawnX X-coordinate where the player starts and respawns
+     * @param spawnY Y-coordinate where the player starts and respawns
+     * @param obstacles Solid blocks
+     * @param spikes Spike areas
+     * @param spikeAngles Rotation of each spike image in degrees
+     * @param button The button rectangle
+     * @param buttonFloor The solid floor under the button
+     * @param door The door rectangle
+     * @param startPipe Rectangles of the start pipe
+     * @param exitPipe Rectangles of the exit pipe, the second one being its mouth
+     */
+    public Level(int width, int height, int spawnX, int spawnY, int[][] obstacles, int[][] spikes,
+                 double[] spikeAngles, int[] button, int[] buttonFloor, int[] door,
+                 int[][] startPipe, int[][] exitPipe) {
+        this(width, height, spawnX, spawnY, new RectArray(obstacles), new RectArray(spikes), spikeAngles.clone(),
+                new RectArray(new int[][]{button}), new RectArray(new int[][]{buttonFloor}),
+                new RectArray(new int[][]{door}), new RectArray(startPipe), new RectArray(exitPipe),
+                new EntityArray(new int[0], new int[0][], new double[0]));
+    }
+
+    /**
+     * Builds a level from already compiled rectangles. Used by LevelFile, which reads
+     * the rectangles straight from the file. The spike angle array is kept, not copied.
+     *
+     * @param width Width of the level in world units
+     * @param height Height of the level in world units
+     * @param spawnX X-coordinate where the player starts and respawns
+     * @param spawnY Y-coordinate where the player starts and respawns
+     * @param obstacles Solid blocks
+     * @param spikes Spike areas
+     * @param spikeAngles Rotation of each spike image in degrees
+     * @param button The button, a single rectangle
+     * @param buttonFloor The solid floor under the button, a single rectangle
+     * @param door The door, a single rectangle
+     * @param startPipe Rectangles of the start pipe
+     * @param exitPipe Rectangles of the exit pipe, the second one being its mouth
+     * @param entities Moving platforms and hazards
+     */
+    public Level(int width, int height, int spawnX, int spawnY, RectArray obstacles, RectArray spikes,
+                 double[] spikeAngles, RectArray button, RectArray buttonFloor, RectArray door,
+                 RectArray startPipe, RectArray exitPipe, EntityArray entities) {
+        if (spikeAngles.length != spikes.size()) {
+            throw new IllegalArgumentException("Every spike needs an angle");
+        }
+        if (button.size() != 1 || buttonFloor.size() != 1 || door.size() != 1) {
+            throw new IllegalArgumentException("Button, button floor and door must be single rectangles");
+        }
+        if (exitPipe.size() < 2) {
+            throw new IllegalArgumentException("The exit pipe needs a body and a mouth");
+        }
+        this.width = width;
+        this.height = height;
+        this.spawnX = spawnX;
+        this.spawnY = spawnY;
+        this.obstacles = obstacles;
+        this.spikes = spikes;
+        this.spikeAngles = spikeAngles;
+        this.button = button;
+        this.buttonFloor = buttonFloor;
+        this.door = door;
+        this.startPipe = startPipe;
+        this.exitPipe = exitPipe;
+        this.entities = entities;
+        this.obstacleGrid = new ObstacleGrid(obstacles, 30);
+    }
+
+    /**
+     * Returns the shared level used by every stage.
+     *
+     * @return The default level
+     */
+    public static Level getDefault() {
+        return defaultLevel;
+    }
+
+    /**
+     * Loads the level every stage is played on.
+     *
+     * @return The compiled level
+     */
+    private static Level loadDefault() {
+        try {
+            return LevelFile.load(DEFAULT_PATH);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load " + DEFAULT_PATH + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return The width of the level in world units
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the level in world units
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The x-coordinate where the player starts and respawns
+     */
+    public int getSpawnX() {
+        return spawnX;
+    }
+
+    /**
+     * @return The y-coordinate where the player starts and respawns
+     */
+    public int getSpawnY() {
+        return spawnY;
+    }
+
+    /**
+     * @return The solid blocks of the level
+     */
+    public RectArray getObstacles() {
+        return obstacles;
+    }
+
+    /**
+     * @return The spike areas of the level
+     */
+    public RectArray getSpikes() {
+        return spikes;
+    }
+
+    /**
+     * @param i Spike index
+     * @return Rotation of the spike image in degrees
+     */
+    public double getSpikeAngle(int i) {
+        return spikeAngles[i];
+    }
+
+    /**
+     * @return The button, a single rectangle
+     */
+    public RectArray getButton() {
+        return button;
+    }
+
+    /**
+     * @return The floor under the button, a single rectangle
+     */
+    public RectArray getButtonFloor() {
+        return buttonFloor;
+    }
+
+    /**
+     * @return The door, a single rectangle
+     */
+    public RectArray getDoor() {
+        return door;
+    }
+
+    /**
+     * @return The rectangles of the start pipe
+     */
+    public RectArray getStartPipe() {
+        return startPipe;
+    }
+
+    /**
+     * @return The rectangles of the exit pipe
+     */
+    public RectArray getExitPipe() {
+        return exitPipe;
+    }
+
+    /**
+     * @return The moving platforms and hazards of the level
+     */
+    public EntityArray getEntities() {
+        return entities;
+    }
+
+    /**
+     * @return The spatial index over the obstacles
+     */
+    public ObstacleGrid getObstacleGrid() {
+        return obstacleGrid;
+    }
+}
@@ -0,0 +1,444 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Reads and writes level files.
+ *
+ * A level is stored in a compact binary form (.olvl) that the game loads, and
+ * can also be written in a line-based text form for editing by hand. Binary
+ * files are memory-mapped and every rectangle set is compiled straight from
+ * the mapped buffer into a RectArray, so loading allocates nothing but the
+ * final arrays and is cheap enough to do per stage.
+ *
+ * Binary layout, big-endian, every coordinate a signed 16-bit value:
+ *   int magic "OLVL", short version
+ *   short width, height, spawnX, spawnY
+ *   short obstacle count, then 4 coordinates per obstacle
+ *   short spike count, then 4 coordinates per spike, then a float angle
+ *   per spike in the same order
+ *   4 coordinates each for the button, the button floor and the door
+ *   short start pipe count, then 4 coordinates per rectangle
+ *   short exit pipe count, then 4 coordinates per rectangle
+ *   short entity count, then per entity a type byte, ax, ay, bx, by,
+ *   width and height, and a float speed (since version 2)
+ *
+ * Text form, one item per line, '#' starts a comment:
+ *   size 800 600
+ *   spawn 131 465
+ *   obstacle x1 y1 x2 y2
+ *   spike x1 y1 x2 y2 angle
+ *   button / buttonFloor / door x1 y1 x2 y2
+ *   startPipe / exitPipe x1 y1 x2 y2
+ *   platform / spinner / enemy ax ay bx by width height speed
+ *
+ * Platforms and enemies move between A and B, spinners orbit A through B,
+ * see EntityArray. Speeds are in pixels or degrees per tick.
+ *
+ * Usage: java LevelFile input output converts between the two forms,
+ * chosen by the .olvl extension.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Binary and text level formats.
+ */
+public class LevelFile {
+    public static final int MAGIC = 0x4F4C564C;  // "OLVL"
+    public static final int VERSION = 2;
+    public static final String BINARY_EXTENSION = ".olvl";
+
+    // Text keywords of the entity types, indexed by EntityArray type
+    private static final String[] ENTITY_KEYWORDS = {"platform", "spinner", "enemy"};
+
+    /**
+     * Loads a level, binary if the path ends in .olvl, text otherwise.
+     *
+     * @param path Path of the level file
+     * @return The compiled level
+     * @throws IOException If the file cannot be read or is invalid
+     */
+    public static Level load(String path) throws IOException {
+        if (path.endsWith(BINARY_EXTENSION)) {
+            return loadBinary(path);
+        }
+        return loadText(path);
+    }
+
+    /**
+     * Memory-maps a binary level file and compiles it.
+     *
+     * @param path Path of the level file
+     * @return The compiled level
+     * @throws IOException If the file cannot be read or is invalid
+     */
+    public static Level loadBinary(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        }
+    }
+
+    /**
+     * Compiles a binary level from a buffer.
+     *
+     * @param buffer Buffer positioned at the start of the level
+     * @return The compiled level
+     * @throws IOException If the data is not a valid level
+     */
+    public static Level read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a level file");
+            }
+            int version = buffer.getShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported level version " + version);
+            }
+            int width = buffer.getShort();
+            int height = buffer.getShort();
+            int spawnX = buffer.getShort();
+            int spawnY = buffer.getShort();
+
+            RectArray obstacles = new RectArray(buffer, readCount(buffer));
+            int spikeCount = readCount(buffer);
+            RectArray spikes = new RectArray(buffer, spikeCount);
+            double[] spikeAngles = new double[spikeCount];
+            for (int i = 0; i < spikeCount; i++) {
+                spikeAngles[i] = buffer.getFloat();
+            }
+            RectArray button = new RectArray(buffer, 1);
+            RectArray buttonFloor = new RectArray(buffer, 1);
+            RectArray door = new RectArray(buffer, 1);
+            RectArray startPipe = new RectArray(buffer, readCount(buffer));
+            RectArray exitPipe = new RectArray(buffer, readCount(buffer));
+            EntityArray entities = new EntityArray(buffer, version >= 2 ? readCount(buffer) : 0);
+
+            return new Level(width, height, spawnX, spawnY, obstacles, spikes, spikeAngles,
+                    button, buttonFloor, door, startPipe, exitPipe, entities);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Level file is truncated");
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid level: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a rectangle count.
+     *
+     * @param buffer The buffer
+     * @return The count
+     * @throws IOException If the count is negative
+     */
+    private static int readCount(ByteBuffer buffer) throws IOException {
+        int count = buffer.getShort();
+        if (count < 0) {
+            throw new IOException("Negative rectangle count");
+        }
+        return count;
+    }
+
+    /**
+     * Writes a level in binary form.
+     *
+     * @param level The level
+     * @param out Stream receiving the level, closed afterwards
+     * @throws IOException If the level cannot be written
+     */
+    public static void write(Level level, OutputStream out) throws IOException {
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+            data.writeInt(MAGIC);
+            data.writeShort(VERSION);
+            data.writeShort(level.getWidth());
+            data.writeShort(level.getHeight());
+            data.writeShort(level.getSpawnX());
+            data.writeShort(level.getSpawnY());
+
+            writeRects(data, level.getObstacles(), true);
+            writeRects(data, level.getSpikes(), true);
+            for (int i = 0; i < level.getSpikes().size(); i++) {
+                data.writeFloat((float) level.getSpikeAngle(i));
+            }
+            writeRects(data, level.getButton(), false);
+            writeRects(data, level.getButtonFloor(), false);
+            writeRects(data, level.getDoor(), false);
+            writeRects(data, level.getStartPipe(), true);
+            writeRects(data, level.getExitPipe(), true);
+
+            EntityArray entities = level.getEntities();
+            data.writeShort(entities.size());
+            for (int i = 0; i < entities.size(); i++) {
+                data.writeByte(entities.type(i));
+                data.writeShort(toCoordinate(entities.ax(i)));
+                data.writeShort(toCoordinate(entities.ay(i)));
+                data.writeShort(toCoordinate(entities.bx(i)));
+                data.writeShort(toCoordinate(entities.by(i)));
+                data.writeShort(toCoordinate(entities.halfWidth(i) * 2));
+                data.writeShort(toCoordinate(entities.halfHeight(i) * 2));
+                data.writeFloat((float) entities.speed(i));
+            }
+        }
+    }
+
+    /**
+     * Writes rectangles as four 16-bit coordinates each.
+     *
+     * @param data The stream
+     * @param rects The rectangles
+     * @param withCount Whether the count is written first
+     * @throws IOException If the rectangles cannot be written
+     */
+    private static void writeRects(DataOutputStream data, RectArray rects, boolean withCount) throws IOException {
+        if (withCount) {
+            data.writeShort(rects.size());
+        }
+        for (int i = 0; i < rects.size(); i++) {
+            data.writeShort(toCoordinate(rects.minX(i)));
+            data.writeShort(toCoordinate(rects.minY(i)));
+            data.writeShort(toCoordinate(rects.maxX(i)));
+            data.writeShort(toCoordinate(rects.maxY(i)));
+        }
+    }
+
+    /**
+     * Converts a coordinate to its stored form.
+     *
+     * @param value The coordinate
+     * @return The coordinate as a 16-bit value
+     * @throws IOException If the coordinate does not fit
+     */
+    private static int toCoordinate(double value) throws IOException {
+        long rounded = Math.round(value);
+        if (rounded < Short.MIN_VALUE || rounded > Short.MAX_VALUE) {
+            throw new IOException("Coordinate out of range: " + value);
+        }
+        return (int) rounded;
+    }
+
+    /**
+     * Parses a level in text form.
+     *
+     * @param path Path of the text file
+     * @return The compiled level
+     * @throws IOException If the file cannot be read or is invalid
+     */
+    public static Level loadText(String path) throws IOException {
+        int width = 800;
+        int height = 600;
+        int[] spawn = null;
+        int[] button = null;
+        int[] buttonFloor = null;
+        int[] door = null;
+        ArrayList<int[]> obstacles = new ArrayList<int[]>();
+        ArrayList<int[]> spikes = new ArrayList<int[]>();
+        ArrayList<Double> spikeAngles = new ArrayList<Double>();
+        ArrayList<int[]> startPipe = new ArrayList<int[]>();
+        ArrayList<int[]> exitPipe = new ArrayList<int[]>();
+        ArrayList<Integer> entityTypes = new ArrayList<Integer>();
+        ArrayList<int[]> entityValues = new ArrayList<int[]>();
+        ArrayList<Double> entitySpeeds = new ArrayList<Double>();
+
+        try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                String[] parts = line.split("\\s+");
+                String keyword = parts[0];
+                try {
+                    if (keyword.equals("size")) {
+                        int[] size = parseInts(parts, 2);
+                        width = size[0];
+                        height = size[1];
+                    } else if (keyword.equals("spawn")) {
+                        spawn = parseInts(parts, 2);
+                    } else if (keyword.equals("obstacle")) {
+                        obstacles.add(parseInts(parts, 4));
+                    } else if (keyword.equals("spike")) {
+                        if (parts.length != 6) {
+                            throw new IOException("Expected 5 values");
+                        }
+                        spikes.add(parseInts(new String[]{parts[0], parts[1], parts[2], parts[3], parts[4]}, 4));
+                        spikeAngles.add(Double.parseDouble(parts[5]));
+                    } else if (keyword.equals("button")) {
+                        button = parseInts(parts, 4);
+                    } else if (keyword.equals("buttonFloor")) {
+                        buttonFloor = parseInts(parts, 4);
+                    } else if (keyword.equals("door")) {
+                        door = parseInts(parts, 4);
+                    } else if (keyword.equals("startPipe")) {
+                        startPipe.add(parseInts(parts, 4));
+                    } else if (keyword.equals("exitPipe")) {
+                        exitPipe.add(parseInts(parts, 4));
+                    } else if (entityType(keyword) >= 0) {
+                        if (parts.length != 8) {
+                            throw new IOException("Expected 7 values");
+                        }
+                        entityTypes.add(entityType(keyword));
+                        entityValues.add(parseInts(Arrays.copyOf(parts, 7), 6));
+                        entitySpeeds.add(Double.parseDouble(parts[7]));
+                    } else {
+                        throw new IOException("Unknown keyword " + keyword);
+                    }
+                } catch (IOException | NumberFormatException e) {
+                    throw new IOException(path + ":" + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+
+        if (spawn == null || button == null || buttonFloor == null || door == null) {
+            throw new IOException(path + ": spawn, button, buttonFloor and door are required");
+        }
+        double[] angles = new double[spikeAngles.size()];
+        for (int i = 0; i < angles.length; i++) {
+            angles[i] = spikeAngles.get(i);
+        }
+        int[] types = new int[entityTypes.size()];
+        double[] speeds = new double[entitySpeeds.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = entityTypes.get(i);
+            speeds[i] = entitySpeeds.get(i);
+        }
+        try {
+            return new Level(width, height, spawn[0], spawn[1], new RectArray(obstacles.toArray(new int[0][])),
+                    new RectArray(spikes.toArray(new int[0][])), angles, new RectArray(new int[][]{button}),
+                    new RectArray(new int[][]{buttonFloor}), new RectArray(new int[][]{door}),
+                    new RectArray(startPipe.toArray(new int[0][])), new RectArray(exitPipe.toArray(new int[0][])),
+                    new EntityArray(types, entityValues.toArray(new int[0][]), speeds));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the entity type named by a text keyword.
+     *
+     * @param keyword The keyword
+     * @return EntityArray.PLATFORM, SPINNER or ENEMY, or -1 if the keyword names no entity
+     */
+    private static int entityType(String keyword) {
+        for (int type = 0; type < ENTITY_KEYWORDS.length; type++) {
+            if (ENTITY_KEYWORDS[type].equals(keyword)) {
+                return type;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the integer values of a text line.
+     *
+     * @param parts The keyword followed by the values
+     * @param count Number of values expected
+     * @return The values
+     * @throws IOException If the number of values is wrong
+     */
+    private static int[] parseInts(String[] parts, int count) throws IOException {
+        if (parts.length != count + 1) {
+            throw new IOException("Expected " + count + " values");
+        }
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Integer.parseInt(parts[i + 1]);
+        }
+        return values;
+    }
+
+    /**
+     * Writes a level in text form.
+     *
+     * @param level The level
+     * @param path Path of the text file
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeText(Level level, String path) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("# Level file, see LevelFile for the format");
+            out.println("size " + level.getWidth() + " " + level.getHeight());
+            out.println("spawn " + level.getSpawnX() + " " + level.getSpawnY());
+            RectArray obstacles = level.getObstacles();
+            for (int i = 0; i < obstacles.size(); i++) {
+                out.println("obstacle " + formatRect(obstacles, i));
+            }
+            RectArray spikes = level.getSpikes();
+            for (int i = 0; i < spikes.size(); i++) {
+                out.println("spike " + formatRect(spikes, i) + " " + level.getSpikeAngle(i));
+            }
+            out.println("button " + formatRect(level.getButton(), 0));
+            out.println("buttonFloor " + formatRect(level.getButtonFloor(), 0));
+            out.println("door " + formatRect(level.getDoor(), 0));
+            for (int i = 0; i < level.getStartPipe().size(); i++) {
+                out.println("startPipe " + formatRect(level.getStartPipe(), i));
+            }
+            for (int i = 0; i < level.getExitPipe().size(); i++) {
+                out.println("exitPipe " + formatRect(level.getExitPipe(), i));
+            }
+            EntityArray entities = level.getEntities();
+            for (int i = 0; i < entities.size(); i++) {
+                out.println(ENTITY_KEYWORDS[entities.type(i)] + " " + Math.round(entities.ax(i)) + " "
+                        + Math.round(entities.ay(i)) + " " + Math.round(entities.bx(i)) + " "
+                        + Math.round(entities.by(i)) + " " + Math.round(entities.halfWidth(i) * 2) + " "
+                        + Math.round(entities.halfHeight(i) * 2) + " " + entities.speed(i));
+            }
+        }
+    }
+
+    /**
+     * Formats a rectangle as its four corner coordinates.
+     *
+     * @param rects The rectangles
+     * @param i Rectangle index
+     * @return The coordinates separated by spaces
+     */
+    private static String formatRect(RectArray rects, int i) {
+        return Math.round(rects.minX(i)) + " " + Math.round(rects.minY(i)) + " "
+                + Math.round(rects.maxX(i)) + " " + Math.round(rects.maxY(i));
+    }
+
+    /**
+     * Converts a level file between the binary and the text form.
+     *
+     * @param args Input and output path
+     * @throws IOException If a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java LevelFile input output");
+            System.exit(1);
+        }
+        Level level = load(args[0]);
+        if (args[1].endsWith(BINARY_EXTENSION)) {
+            write(level, new FileOutputStream(args[1]));
+        } else {
+            writeText(level, args[1]);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Open-addressing hash set of primitive longs.
+ *
+ * Used by the solver to remember visited states without boxing every key.
+ * Reads may run concurrently as long as nothing is being added.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+/**
+ * Hash set of long keys with linear probing.
+ */
+public class LongHashSet {
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    private boolean hasZero = false;
+    private int size = 0;
+
+    /**
+     * Constructs a set sized for the expected number of keys.
+     *
+     * @param expected Expected number of keys
+     */
+    public LongHashSet(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+    }
+
+    /**
+     * Checks whether the key is in the set.
+     *
+     * @param key The key
+     * @return true if the key was added before
+     */
+    public boolean contains(long key) {
+        if (key == EMPTY) {
+            return hasZero;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the key to the set.
+     *
+     * @param key The key
+     * @return true if the key was not in the set before
+     */
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of keys in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Doubles the table and reinserts every key.
+     */
+    private void grow() {
+        long[] old = keys;
+        keys = new long[old.length * 2];
+        int mask = keys.length - 1;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    /**
+     * Mixes the bits of a key so nearby states spread over the table.
+     *
+     * @param key The key
+     * @return The hash
+     */
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
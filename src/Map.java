@@ -5,21 +5,34 @@
  * Represents the game environment, including obstacles, spikes, pipes, and the player.
  *
  * The Map class manages movement, drawing, button presses, collision detection,
- * and door animation. It acts as the central logic point for game interactions
- * during a stage.
+ * door animation and the moving entities of the level. It acts as the central
+ * logic point for game interactions during a stage.
  *
  * @author Devin Isler
  * @version 1.0
  */
 
-import java.awt.*;
+import java.awt.Color;
 
 /**
  * Represents the game map with obstacles, interactive elements, and collision detection.
  */
 public class Map {
+    // Input bits accepted by step()
+    public static final int INPUT_RIGHT = 1;
+    public static final int INPUT_LEFT = 2;
+    public static final int INPUT_UP = 4;
+
+    // Spinner sprites are prepared in steps of this many degrees
+    private static final int SPIN_STEP = 15;
+    private static final String spikeFile = "./misc/Spikes.png";
+
+    // Number of values written by saveState()
+    public static final int STATE_SIZE = 13;
+
     // Map elements and properties
     private final Stage stage;
+    private final StageRules rules;  // Resolved once, read on every tick
     private final Player player;
     private boolean firstTouch = false;
     private int deathCount = 0;
@@ -27,72 +40,60 @@ public class Map {
     private boolean isDoorOpen = false;
     private boolean isPressed = false;
     private boolean nowPressing = false;
-
-    // File paths
-    private final String file = "./misc/Spikes.png";
+    private double doorOffset = 0;
+    private int entityTick = 0;
+    private int carrier = -1;  // Platform the player stands on and rides along with, or -1
+
+    // Shared level geometry
+    private final Level level;
+    private final RectArray obstacles;
+    private final RectArray spikes;
+    private final RectArray button;
+    private final RectArray buttonFloor;
+    private final RectArray door;
+    private final EntitySystem entities;
+    private final RectArray platforms;  // Bounds of every entity, only the platforms are ever candidates
 
     // Calculation variables
-    private double[] spikeFormatted;
-    private double angle;
-    private Color color;
-    private double[] o;
-    private double[] formattedDoor;
-
-    // Obstacles List (format is int[] = {xLeftDown, yLeftDown, xRightUp, yRightUp}
-    private final int[][] obstacles = {
-            new int[]{0, 120, 120, 270}, new int[]{0, 270, 168, 330},
-            new int[]{0, 330, 30, 480}, new int[]{0, 480, 180, 600},
-            new int[]{180, 570, 680, 600}, new int[]{270, 540, 300, 570},
-            new int[]{590, 540, 620, 570}, new int[]{680, 510, 800, 600},
-            new int[]{710, 450, 800, 510}, new int[]{740, 420, 800, 450},
-            new int[]{770, 300, 800, 420}, new int[]{680, 240, 800, 300},
-            new int[]{680, 300, 710, 330}, new int[]{770, 180, 800, 240},
-            new int[]{0, 120, 800, 150}, new int[]{560, 150, 800, 180},
-            new int[]{530, 180, 590, 210}, new int[]{530, 210, 560, 240},
-            new int[]{320, 150, 440, 210}, new int[]{350, 210, 440, 270},
-            new int[]{220, 270, 310, 300}, new int[]{360, 360, 480, 390},
-            new int[]{530, 310, 590, 340}, new int[]{560, 400, 620, 430}};;
-
-    // Button Coordinates
-    private final int[] button = {400, 390, 470, 410};
-
-    // Button Floor Coordinates
-    private final int[] buttonFloor = {400, 390, 470, 400};
-    private final int[][] buttonFloorArray = {{400, 390, 470, 400}};
-
-    // Start Pipe Coordinates for Drawing
-    private final int[][] startPipe = {
-            {115, 450, 145, 480},
-            {110, 430, 150, 450}
-    };
-
-    // Exit Pipe Coordinates for Drawing
-    private final int[][] exitPipe = {
-            {720, 175, 740, 215},
-            {740, 180, 770, 210}
-    };
-
-    // Coordinates of spike areas
-    private final int[][] spikes = {
-            new int[]{30, 333, 50, 423}, new int[]{121, 150, 207, 170},
-            new int[]{441, 150, 557, 170}, new int[]{591, 180, 621, 200},
-            new int[]{752, 301, 771, 419}, new int[]{680, 490, 710, 510},
-            new int[]{401, 550, 521, 570}};;
-
-    // Door Coordinates
-    private final int[] door = {685, 180, 700, 240};
+    private int[] candidates;
+    private double snapY;  // Height the player snaps to after the last ground or ceiling sweep
+    private int snapIndex;  // Rectangle that snapY belongs to
+    private Sprite[][] spinnerSprites;  // Per entity, one sprite per SPIN_STEP degrees, filled when prepared
+    private ParticlePool particles;  // Decoration only, null in headless maps
+    private boolean onGround = false;  // Whether the player landed during the last tick, for the dust
+    private BackgroundLayer background;
 
     /**
      * Constructs a Map with the specified stage and player.
      *
      * @param stage The game stage containing game mechanics and properties
      * @param player The player object
+     * @param level The compiled level geometry shared by all stages
      */
-    public Map(Stage stage, Player player) {
+    public Map(Stage stage, Player player, Level level) {
         this.stage = stage;
+        this.rules = stage.getRules();
         this.player = player;
-        this.color = stage.getColor();
-        this.formattedDoor = setFormat(door);
+        this.level = level;
+        this.obstacles = level.getObstacles();
+        this.spikes = level.getSpikes();
+        this.button = level.getButton();
+        this.buttonFloor = level.getButtonFloor();
+        this.door = level.getDoor();
+        this.entities = new EntitySystem(level);
+        this.platforms = entities.getBounds();
+        this.candidates = new int[Math.max(obstacles.size(), entities.size())];
+        entities.update(entityTick);
+    }
+
+    /**
+     * Lets the map emit particles on deaths, landings and while the door slides.
+     * The map ticks and draws the pool along with itself.
+     *
+     * @param particles The pool, or null for no particles
+     */
+    public void setParticles(ParticlePool particles) {
+        this.particles = particles;
     }
 
     /**
@@ -107,8 +108,8 @@ public class Map {
 
         double curX = getPlayer().getX();
         double curY = getPlayer().getY();
-        double velocityX = stage.getVelocityX();
-        double velocityY = stage.getVelocityY();
+        double velocityX = rules.getVelocityX();
+        double velocityY = rules.getVelocityY();
         boolean canMove = true;
 
         if (direction == 'R') {
@@ -129,29 +130,10 @@ public class Map {
      * @param canMove Whether movement is possible
      */
     private void handleRightMovement(double curX, double curY, double velocityX, boolean canMove) {
-        boolean canMoveRight = canMove;
-
-        for (int[] obstacle : obstacles) {
-            if (checkCollision(curX + velocityX, curY, obstacle)) {
-                canMoveRight = false;
-                break;
-            }
-        }
-
-        if (checkCollision(curX + velocityX, curY, door) && !isDoorOpen) {
-            canMoveRight = false;
-        }
-
-        if (checkCollision(curX + velocityX, curY, buttonFloor)) {
-            canMoveRight = false;
-        }
-
-        if (canMoveRight) {
-            getPlayer().setX(curX + velocityX);
-            getPlayer().playerDirection('R');
-            if (getStage().getStageNumber() == 1) {
-                getPlayer().playerDirection('L');
-            }
+        double nextX = curX + velocityX;
+        if (canMove && !isBlocked(curX, nextX, curY)) {
+            getPlayer().setX(nextX);
+            getPlayer().setFacing(rules.getRightFacing());
         }
     }
 
@@ -164,30 +146,50 @@ public class Map {
      * @param canMove Whether movement is possible
      */
     private void handleLeftMovement(double curX, double curY, double velocityX, boolean canMove) {
-        boolean canMoveLeft = canMove;
-
-        for (int[] obstacle : obstacles) {
-            if (checkCollision(curX - velocityX, curY, obstacle)) {
-                canMoveLeft = false;
-                break;
-            }
+        double nextX = curX - velocityX;
+        if (canMove && !isBlocked(curX, nextX, curY)) {
+            getPlayer().setX(nextX);
+            getPlayer().setFacing(rules.getLeftFacing());
         }
+    }
 
-        if (checkCollision(curX - velocityX, curY, door) && !isDoorOpen) {
-            canMoveLeft = false;
+    /**
+     * Checks whether a horizontal move runs into an obstacle, the closed door, the button
+     * floor or a platform.
+     *
+     * @param curX X position before the move
+     * @param nextX X position after the move
+     * @param curY Y position of the player
+     * @return true if the move is blocked, false otherwise
+     */
+    private boolean isBlocked(double curX, double nextX, double curY) {
+        if (checkSweptCollision(curX, nextX, curY, door, 0) && !isDoorOpen) {
+            return true;
         }
-
-        if (checkCollision(curX - velocityX, curY, buttonFloor)) {
-            canMoveLeft = false;
+        if (checkSweptCollision(curX, nextX, curY, buttonFloor, 0)) {
+            return true;
         }
+        return isBlockedBy(obstacles, curX, nextX, curY) || isBlockedBy(platforms, curX, nextX, curY);
+    }
 
-        if (canMoveLeft) {
-            getPlayer().setX(curX - velocityX);
-            getPlayer().playerDirection('L');
-            if (getStage().getStageNumber() == 1) {
-                getPlayer().playerDirection('R');
+    /**
+     * Checks whether a horizontal move runs into one of a set of rectangles.
+     *
+     * @param rects Rectangles to check against
+     * @param fromX X position the sweep starts from
+     * @param nextX X position after the move
+     * @param curY Y position of the player
+     * @return true if the move collides, false otherwise
+     */
+    private boolean isBlockedBy(RectArray rects, double fromX, double nextX, double curY) {
+        int count = findCandidates(rects, Math.min(fromX, nextX) - 10, curY - 10,
+                Math.max(fromX, nextX) + 10, curY + 10);
+        for (int k = 0; k < count; k++) {
+            if (checkSweptCollision(fromX, nextX, curY, rects, candidates[k])) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
@@ -196,7 +198,8 @@ public class Map {
      * @param velocityY Vertical velocity
      */
     private void handleJump(double velocityY) {
-        boolean isTouchingGround = checkTouchGround(obstacles) || checkTouchGround(buttonFloorArray);
+        boolean isTouchingGround = checkTouchGround(obstacles) || checkTouchGround(buttonFloor)
+                || checkTouchGround(platforms);
 
         if (isTouchingGround) {
             getPlayer().setVelocityY(velocityY);
@@ -208,77 +211,191 @@ public class Map {
      *
      * @param nextX Next X position
      * @param nextY Next Y position
-     * @param obstacle Obstacle coordinates
+     * @param rects Rectangles containing the obstacle
+     * @param i Index of the obstacle
      * @return true if collision occurs, false otherwise
      */
-    private boolean checkCollision(double nextX, double nextY, int[] obstacle) {
-        return (nextX + 10 > obstacle[0] && nextX < obstacle[2] + 10 &&
-                nextY + 10 > obstacle[1] && nextY < obstacle[3] + 10);
+    public boolean checkCollision(double nextX, double nextY, RectArray rects, int i) {
+        return (nextX + 10 > rects.minX(i) && nextX < rects.maxX(i) + 10 &&
+                nextY + 10 > rects.minY(i) && nextY < rects.maxY(i) + 10);
     }
 
     /**
-     * Checks if the player is touching the ground.
+     * Checks whether a horizontal move from fromX to toX runs into a rectangle. Besides the
+     * destination, this catches a rectangle the player would pass over entirely in one tick,
+     * so no speed can skip through a wall.
      *
-     * @param obstacles Array of obstacles to check against
-     * @return true if player is touching ground, false otherwise
+     * @param fromX X position before the move
+     * @param toX X position after the move
+     * @param y Y position of the player
+     * @param rects Rectangles containing the obstacle
+     * @param i Index of the obstacle
+     * @return true if the move collides, false otherwise
      */
-    public boolean checkTouchGround(int[][] obstacles) {
-        boolean isTouchingGround = false;
-
-        for (int[] obstacle : obstacles) {
-            o = setFormat(obstacle);
-            if (getPlayer().getY() + getStage().getGravity() - o[1] > 0 &&
-                    getPlayer().getY() + getStage().getGravity() - o[1] <= o[3] + 10 &&
-                    getPlayer().getX() + 10 > obstacle[0] && getPlayer().getX() < obstacle[2] + 10) {
-                isTouchingGround = true;
-                break;
-            }
+    public boolean checkSweptCollision(double fromX, double toX, double y, RectArray rects, int i) {
+        if (checkCollision(toX, y, rects, i)) {
+            return true;
         }
+        boolean passedOver = fromX < toX
+                ? fromX + 10 <= rects.minX(i) && toX - 10 >= rects.maxX(i)
+                : fromX - 10 >= rects.maxX(i) && toX + 10 <= rects.minX(i);
+        return passedOver && y + 10 > rects.minY(i) && y < rects.maxY(i) + 10;
+    }
 
-        if (isTouchingGround) {
-            getPlayer().setY(o[1] + o[3] + 10);
-            return true;
+    /**
+     * Finds the rectangles that may collide with a player inside the given box.
+     * The obstacles and the platforms are looked up in their grids; any other set is scanned in full.
+     * Indices are written to candidates in ascending order.
+     *
+     * @param rects Rectangles to check against
+     * @param minX Left edge of the box
+     * @param minY Bottom edge of the box
+     * @param maxX Right edge of the box
+     * @param maxY Top edge of the box
+     * @return Number of candidate indices
+     */
+    private int findCandidates(RectArray rects, double minX, double minY, double maxX, double maxY) {
+        if (rects == obstacles) {
+            return level.getObstacleGrid().query(minX, minY, maxX, maxY, candidates);
+        }
+        if (rects == platforms) {
+            return entities.query(minX, minY, maxX, maxY, true, candidates);
         }
+        if (candidates.length < rects.size()) {
+            candidates = new int[rects.size()];
+        }
+        for (int i = 0; i < rects.size(); i++) {
+            candidates[i] = i;
+        }
+        return rects.size();
+    }
 
-        return false;
+    /**
+     * Checks if the player is touching the ground.
+     *
+     * @param obstacles Obstacles to check against
+     * @return true if player is touching ground, false otherwise
+     */
+    public boolean checkTouchGround(RectArray obstacles) {
+        if (sweepGround(obstacles, getPlayer().getY(), Double.NEGATIVE_INFINITY) == Double.NEGATIVE_INFINITY) {
+            return false;
+        }
+        getPlayer().setY(snapY);
+        return true;
     }
 
     /**
      * Checks if the player is touching a ceiling.
      *
-     * @param obstacles Array of obstacles to check against
+     * @param obstacles Obstacles to check against
      * @return true if player is touching ceiling, false otherwise
      */
-    public boolean checkTouchCeiling(int[][] obstacles) {
-        boolean isTouchingCeiling = false;
+    public boolean checkTouchCeiling(RectArray obstacles) {
+        if (sweepCeiling(obstacles, getPlayer().getY(), Double.POSITIVE_INFINITY) == Double.POSITIVE_INFINITY) {
+            return false;
+        }
+        getPlayer().setY(snapY);
+        return true;
+    }
 
-        for (int[] obstacle : obstacles) {
-            o = setFormat(obstacle);
-            if (o[1] - getPlayer().getY() + getStage().getGravity() > 0 &&
-                    o[1] - getPlayer().getY() + getStage().getGravity() <= o[3] + 10 &&
-                    getPlayer().getX() + 10 > obstacle[0] && getPlayer().getX() < obstacle[2] + 10) {
-                isTouchingCeiling = true;
-                break;
+    /**
+     * Sweeps the player down from fromY to its current height and finds the first top it lands on.
+     * A top is touched when the player started above the middle of the rectangle and ends within
+     * one gravity step of resting on it, or anywhere below. The path in between does not matter,
+     * so neither the speed nor the size of the step can carry the player through. When fromY
+     * equals the current height this is the plain test of the reached position. The snap height
+     * and the index of the hit are left in snapY and snapIndex.
+     *
+     * @param rects Rectangles to check against
+     * @param fromY Height of the player before the move
+     * @param best Contact height of a hit found earlier, or negative infinity
+     * @return Height along the path where the earliest hit is first touched, or best if none is earlier
+     */
+    private double sweepGround(RectArray rects, double fromY, double best) {
+        double x = getPlayer().getX();
+        double y = getPlayer().getY();
+        double gravity = rules.getGravity();
+        double reach = 10 + Math.abs(gravity);
+        int count = findCandidates(rects, x - reach, y - reach, x + reach, Math.max(fromY, y) + reach);
+        for (int k = 0; k < count; k++) {
+            int i = candidates[k];
+            double centerY = rects.centerY(i);
+            double halfHeight = rects.halfHeight(i);
+            boolean above = fromY > y ? fromY - centerY > 0 : y + gravity - centerY > 0;
+            if (above && y + gravity - centerY <= halfHeight + 10 &&
+                    x + 10 > rects.minX(i) && x < rects.maxX(i) + 10) {
+                double contact = Math.min(fromY, centerY + halfHeight + 10 - gravity);
+                if (contact > best) {
+                    best = contact;
+                    snapY = centerY + halfHeight + 10;
+                    snapIndex = i;
+                }
             }
         }
+        return best;
+    }
 
-        if (isTouchingCeiling) {
-            getPlayer().setY(o[1] - o[3] - 10);
-            return true;
+    /**
+     * Sweeps the player up from fromY to its current height and finds the first underside it
+     * hits, the mirror of sweepGround. The snap height of the hit is left in snapY.
+     *
+     * @param rects Rectangles to check against
+     * @param fromY Height of the player before the move
+     * @param best Contact height of a hit found earlier, or positive infinity
+     * @return Height along the path where the earliest hit is first touched, or best if none is earlier
+     */
+    private double sweepCeiling(RectArray rects, double fromY, double best) {
+        double x = getPlayer().getX();
+        double y = getPlayer().getY();
+        double gravity = rules.getGravity();
+        double reach = 10 + Math.abs(gravity);
+        int count = findCandidates(rects, x - reach, Math.min(fromY, y) - reach, x + reach, y + reach);
+        for (int k = 0; k < count; k++) {
+            int i = candidates[k];
+            double centerY = rects.centerY(i);
+            double halfHeight = rects.halfHeight(i);
+            boolean below = fromY < y ? centerY - fromY > 0 : centerY - y + gravity > 0;
+            if (below && centerY - y + gravity <= halfHeight + 10 &&
+                    x + 10 > rects.minX(i) && x < rects.maxX(i) + 10) {
+                double contact = Math.max(fromY, centerY - halfHeight - 10 + gravity);
+                if (contact < best) {
+                    best = contact;
+                    snapY = centerY - halfHeight - 10;
+                }
+            }
         }
-        return false;
+        return best;
     }
 
     /**
      * Checks if the player has collided with spikes.
      *
-     * @param spikes Array of spike coordinates
+     * @param spikes Spike areas
      * @return true if collision with spikes occurs, false otherwise
      */
-    public boolean checkSpikeCollision(int[][] spikes) {
-        for (int[] spike : spikes) {
-            if (getPlayer().getX() + 10 >= spike[0] && getPlayer().getX() - 10 <= spike[2]
-                    && getPlayer().getY() >= spike[1] && getPlayer().getY() <= spike[3]) {
+    public boolean checkSpikeCollision(RectArray spikes) {
+        for (int i = 0; i < spikes.size(); i++) {
+            if (getPlayer().getX() + 10 >= spikes.minX(i) && getPlayer().getX() - 10 <= spikes.maxX(i)
+                    && getPlayer().getY() >= spikes.minY(i) && getPlayer().getY() <= spikes.maxY(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the player touches a spinner or an enemy.
+     *
+     * @return true if the player touches a deadly entity, false otherwise
+     */
+    public boolean checkHazardCollision() {
+        double x = getPlayer().getX();
+        double y = getPlayer().getY();
+        int count = entities.query(x - 10, y - 10, x + 10, y + 10, false, candidates);
+        for (int k = 0; k < count; k++) {
+            int i = candidates[k];
+            if (x + 10 >= platforms.minX(i) && x - 10 <= platforms.maxX(i)
+                    && y + 10 >= platforms.minY(i) && y - 10 <= platforms.maxY(i)) {
                 return true;
             }
         }
@@ -288,12 +405,12 @@ public class Map {
     /**
      * Checks if the player has collided with a button.
      *
-     * @param button Button coordinates
+     * @param button Button rectangle
      * @return true if collision with button occurs, false otherwise
      */
-    public boolean checkButtonCollision(int[] button) {
-        return getPlayer().getX() + 10 >= button[0] && getPlayer().getX() - 10 <= button[2]
-                && getPlayer().getY() >= button[1] && getPlayer().getY() <= button[3];
+    public boolean checkButtonCollision(RectArray button) {
+        return getPlayer().getX() + 10 >= button.minX(0) && getPlayer().getX() - 10 <= button.maxX(0)
+                && getPlayer().getY() >= button.minY(0) && getPlayer().getY() <= button.maxY(0);
     }
 
     /**
@@ -302,9 +419,9 @@ public class Map {
      * @return true if player has reached exit, false otherwise
      */
     public boolean changeStage() {
-        double[] formattedPipe = setFormat(exitPipe[1]);
-        return Math.abs(getPlayer().getX() - formattedPipe[0] ) <= 20
-                && Math.abs(getPlayer().getY() - formattedPipe[1]) <= 7;
+        RectArray exitPipe = level.getExitPipe();
+        return Math.abs(getPlayer().getX() - exitPipe.centerX(1)) <= 20
+                && Math.abs(getPlayer().getY() - exitPipe.centerY(1)) <= 7;
     }
 
     /**
@@ -313,7 +430,7 @@ public class Map {
      */
     public void pressButton() {
         buttonPressNum += 1;
-        if (buttonPressNum >= getStage().getNeededPress()) {
+        if (buttonPressNum >= rules.getNeededPress()) {
             isDoorOpen = true;
         }
     }
@@ -322,130 +439,212 @@ public class Map {
      * Restarts the stage, resetting player position and game state.
      */
     public void restartStage() {
-        player.respawn(new int[]{131, 460});
+        respawnPlayer();
         buttonPressNum = 0;
         firstTouch = false;
         isDoorOpen = false;
+        carrier = -1;
     }
 
     /**
-     * Converts rectangle format from [xLeftDown, yLeftDown, xRightUp, yRightUp]
-     * to [centerX, centerY, halfWidth, halfHeight].
-     *
-     * @param format Rectangle in [xLeftDown, yLeftDown, xRightUp, yRightUp] format
-     * @return Converted format as [centerX, centerY, halfWidth, halfHeight]
+     * Puts the player back at the spawn point of the level.
      */
-    private double[] setFormat(int[] format) {
-        double xLeftDown = format[0];
-        double yLeftDown = format[1];
-        double xRightUp = format[2];
-        double yRightUp = format[3];
-        return new double[]{
-                (xRightUp + xLeftDown) / 2, (yRightUp + yLeftDown) / 2,
-                (xRightUp - xLeftDown) / 2, (yRightUp - yLeftDown) / 2
-        };
+    private void respawnPlayer() {
+        player.respawn(level.getSpawnX(), level.getSpawnY());
     }
 
     /**
-     * Draws all elements of the map.
+     * Advances the simulation by one tick without drawing anything.
+     * Moves the entities, then applies movement, gravity, ground and ceiling checks, the button,
+     * the door, spikes and hazards.
+     *
+     * @param inputs Bitmask of INPUT_RIGHT, INPUT_LEFT and INPUT_UP held during this tick
      */
-    public void draw() {
+    public void step(int inputs) {
+        player.savePreviousPosition();
+        entityTick++;
+        entities.update(entityTick);
+        carryPlayer();
+        if ((inputs & INPUT_RIGHT) != 0) {
+            movePlayer('R');
+        }
+        if ((inputs & INPUT_LEFT) != 0) {
+            movePlayer('L');
+        }
+        if ((inputs & INPUT_UP) != 0) {
+            movePlayer('U');
+        }
         updatePlayerPhysics();
-        drawDoor();
-        drawObstacles();
-        drawSpikes();
-        drawButton();
-        drawButtonFloor();
+        updateDoor();
+        updateButton();
         checkPlayerDeath();
-        drawPlayer();
-        drawPipes();
+        if (particles != null) {
+            particles.tick();
+        }
+    }
+
+    /**
+     * Draws all elements of the map. Only reads the state produced by step().
+     *
+     * @param renderer Target of the frame
+     * @param alpha Fraction of the next tick that has elapsed, used to interpolate the player
+     * @param profiler Receives the static and dynamic draw phases, may be null
+     */
+    public void draw(Renderer renderer, double alpha, FrameProfiler profiler) {
+        // Static geometry is rendered once per stage, only the door, button and player change
+        if (background == null) {
+            background = BackgroundLayer.forStage(stage, level);
+        }
+        enterPhase(profiler, FrameProfiler.DYNAMIC_DRAW);
+        drawDoor(renderer);
+        enterPhase(profiler, FrameProfiler.STATIC_DRAW);
+        background.drawBack(renderer);
+        enterPhase(profiler, FrameProfiler.DYNAMIC_DRAW);
+        drawButton(renderer);
+        drawEntities(renderer, alpha);
+        drawPlayer(renderer, alpha);
+        if (particles != null) {
+            particles.draw(renderer, alpha);
+        }
+        enterPhase(profiler, FrameProfiler.STATIC_DRAW);
+        background.drawFront(renderer);
+    }
+
+    /**
+     * Renders the background layers and every spin step of the spinner sprites and
+     * prepares them for their first draw, so no sprite is rendered while playing.
+     *
+     * @param renderer Target of the frames
+     */
+    public void prepareSprites(Renderer renderer) {
+        if (background == null) {
+            background = BackgroundLayer.forStage(stage, level);
+        }
+        background.prepare(renderer);
+        for (int i = 0; i < entities.size(); i++) {
+            if (entities.getEntities().type(i) == EntityArray.SPINNER) {
+                for (int step = 0; step < 360 / SPIN_STEP; step++) {
+                    renderer.prepare(getSpinnerSprite(i, step));
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the start of a frame phase when a profiler is given.
+     *
+     * @param profiler The profiler, may be null
+     * @param phase One of the FrameProfiler phases
+     */
+    private static void enterPhase(FrameProfiler profiler, int phase) {
+        if (profiler != null) {
+            profiler.enter(phase);
+        }
     }
 
     /**
      * Updates player physics including gravity and collision detection.
      */
     private void updatePlayerPhysics() {
-        getPlayer().moveInY(getStage().getGravity());
+        double fromY = getPlayer().getY();
+        getPlayer().moveInY(rules.getGravity());
+        double toY = getPlayer().getY();
+
+        carrier = -1;
+
+        // Rising, the underside of a platform is reached before its top
+        if (toY > fromY && sweepCeiling(platforms, fromY,
+                sweepCeiling(obstacles, fromY, Double.POSITIVE_INFINITY)) != Double.POSITIVE_INFINITY) {
+            getPlayer().setY(snapY);
+            getPlayer().setVelocityY(rules.getGravity());
+            firstTouch = true;
+            return;
+        }
+
+        // Falling, land on whichever top the path reaches first, however far the tick moved
+        double groundFrom = Math.max(fromY, toY);
+        double contact = sweepGround(obstacles, groundFrom, Double.NEGATIVE_INFINITY);
+        double landingY = snapY;
+        double floorContact = sweepGround(buttonFloor, groundFrom, contact);
+        if (floorContact > contact) {
+            landingY = snapY;
+            contact = floorContact;
+        }
+        double platformContact = sweepGround(platforms, groundFrom, contact);
+        if (platformContact > contact) {
+            landingY = snapY;
+            contact = platformContact;
+            carrier = snapIndex;
+        }
 
-        if (checkTouchGround(obstacles) || checkTouchGround(buttonFloorArray)) {
-            getPlayer().setVelocityY(getStage().getGravity());
+        // Bouncing stages land with the jump velocity, the others with gravity
+        boolean landed = contact != Double.NEGATIVE_INFINITY;
+        if (landed) {
+            getPlayer().setY(landingY);
+            getPlayer().setVelocityY(rules.getLandingVelocity());
             firstTouch = true;
-            if (getStage().getStageNumber() == 2) {
-                getPlayer().setVelocityY(getStage().getVelocityY());
+            if (!onGround && particles != null) {
+                particles.dust(getPlayer().getX(), landingY - 10);
             }
         }
+        onGround = landed;
 
-        if (checkTouchCeiling(obstacles)) {
-            getPlayer().setVelocityY(getStage().getGravity());
+        if (checkTouchCeiling(obstacles) || checkTouchCeiling(platforms)) {
+            getPlayer().setVelocityY(rules.getGravity());
             firstTouch = true;
         }
     }
 
     /**
-     * Draws the door, changing position if open.
+     * Moves the player along with the platform it landed on during the last tick. The platform
+     * lifts or lowers the player freely, but does not push it into a wall.
      */
-    private void drawDoor() {
-        StdDraw.setPenColor(StdDraw.GREEN);
-        if (!isDoorOpen) {
-            formattedDoor = setFormat(door);
-            StdDraw.filledRectangle(formattedDoor[0], formattedDoor[1], formattedDoor[2], formattedDoor[3]);
-        } else {
-            formattedDoor[1] = formattedDoor[1] - 3;
-            StdDraw.filledRectangle(formattedDoor[0], formattedDoor[1], formattedDoor[2], formattedDoor[3]);
+    private void carryPlayer() {
+        if (carrier < 0) {
+            return;
+        }
+        double curX = getPlayer().getX();
+        double curY = getPlayer().getY() + entities.velocityY(carrier);
+        getPlayer().setY(curY);
+        double nextX = curX + entities.velocityX(carrier);
+        if (nextX != curX && !isBlocked(curX, nextX, curY)) {
+            getPlayer().setX(nextX);
         }
     }
 
     /**
-     * Draws all obstacles.
+     * Slides the door down while it is open, otherwise keeps it closed. Sparks fly where
+     * the door scrapes past its bottom edge until it has slid out of sight.
      */
-    private void drawObstacles() {
-        StdDraw.setPenColor(stage.getColor());
-        for (int[] obstacle : obstacles) {
-            double[] obstaclesFormatted = setFormat(obstacle);
-            StdDraw.filledRectangle(obstaclesFormatted[0], obstaclesFormatted[1],
-                    obstaclesFormatted[2], obstaclesFormatted[3]);
+    private void updateDoor() {
+        if (!isDoorOpen) {
+            doorOffset = 0;
+        } else {
+            doorOffset -= 3;
+            if (particles != null && -doorOffset <= door.halfHeight(0) * 2) {
+                particles.sparks(door.centerX(0), door.minY(0));
+            }
         }
     }
 
     /**
-     * Draws all spikes with appropriate orientation.
+     * Draws the door at its current position.
+     *
+     * @param renderer Target of the frame
      */
-    private void drawSpikes() {
-        for (int i = 0; i < spikes.length; i++) {
-            spikeFormatted = setFormat(spikes[i]);
-            angle = 0.0;
-
-            // Set spike rotation angle based on position
-            if (i == 1 || i == 2 || i == 3) {
-                angle = 180.0;
-            } else if (i == 0) {
-                angle = 90.0;
-            } else if (i == 4) {
-                angle = 270.0;
-            }
-
-            // Draw spike with appropriate dimensions and rotation
-            if (i == 0 || i == 4) {
-                StdDraw.picture(spikeFormatted[0], spikeFormatted[1], file,
-                        spikeFormatted[3] * 2, spikeFormatted[2] * 2, angle);
-            } else {
-                StdDraw.picture(spikeFormatted[0], spikeFormatted[1], file,
-                        spikeFormatted[2] * 2, spikeFormatted[3] * 2, angle);
-            }
-        }
+    private void drawDoor(Renderer renderer) {
+        renderer.setPenColor(Color.GREEN);
+        renderer.filledRectangle(door.centerX(0), door.centerY(0) + doorOffset,
+                door.halfWidth(0), door.halfHeight(0));
     }
 
     /**
-     * Draws the button and handles its state.
+     * Counts a press each time the player steps onto the raised button.
      */
-    private void drawButton() {
+    private void updateButton() {
         if (!checkButtonCollision(button)) {
             isPressed = true;
             nowPressing = true;
-            StdDraw.setPenColor(StdDraw.RED);
-            double[] formattedButton = setFormat(button);
-            StdDraw.filledRectangle(formattedButton[0], formattedButton[1],
-                    formattedButton[2], formattedButton[3]);
         } else {
             nowPressing = false;
         }
@@ -457,51 +656,144 @@ public class Map {
     }
 
     /**
-     * Draws the button floor.
+     * Draws the button while it is not being stood on.
+     *
+     * @param renderer Target of the frame
      */
-    private void drawButtonFloor() {
-        StdDraw.setPenColor(StdDraw.DARK_GRAY);
-        double[] formattedButtonFloor = setFormat(buttonFloor);
-        StdDraw.filledRectangle(formattedButtonFloor[0], formattedButtonFloor[1],
-                formattedButtonFloor[2], formattedButtonFloor[3]);
+    private void drawButton(Renderer renderer) {
+        if (nowPressing) {
+            renderer.setPenColor(Color.RED);
+            renderer.filledRectangle(button.centerX(0), button.centerY(0), button.halfWidth(0), button.halfHeight(0));
+        }
     }
 
     /**
      * Checks if player died from spikes and handles respawn.
      */
     private void checkPlayerDeath() {
-        if (checkSpikeCollision(spikes)) {
-            player.respawn(new int[]{131, 465});
+        if (checkSpikeCollision(spikes) || checkHazardCollision()) {
+            if (particles != null) {
+                particles.burst(getPlayer().getX(), getPlayer().getY());
+            }
+            respawnPlayer();
             deathCount++;
             firstTouch = false;
             isDoorOpen = false;
             buttonPressNum = 0;
+            carrier = -1;
         }
     }
 
     /**
-     * Draws the player.
+     * Draws the entities between their previous and current tick positions: platforms as blocks
+     * in the stage color, spinners as turning spikes and enemies as red blocks.
+     *
+     * @param renderer Target of the frame
+     * @param alpha Fraction of the next tick that has elapsed
      */
-    private void drawPlayer() {
-        player.draw();
+    private void drawEntities(Renderer renderer, double alpha) {
+        EntityArray definitions = entities.getEntities();
+        for (int i = 0; i < entities.size(); i++) {
+            double x = entities.x(i) - entities.velocityX(i) * (1 - alpha);
+            double y = entities.y(i) - entities.velocityY(i) * (1 - alpha);
+            int type = definitions.type(i);
+            if (type == EntityArray.SPINNER) {
+                getSpinnerSprite(i).draw(renderer, x, y);
+            } else {
+                renderer.setPenColor(type == EntityArray.PLATFORM ? stage.getColor() : Color.RED);
+                renderer.filledRectangle(x, y, definitions.halfWidth(i), definitions.halfHeight(i));
+            }
+        }
     }
 
     /**
-     * Draws the start and exit pipes.
+     * Returns the spike sprite of a spinner at its current spin.
+     *
+     * @param i Entity index
+     * @return The rotated sprite
      */
-    private void drawPipes() {
-        StdDraw.setPenColor(Color.ORANGE);
-        for (int[] pipe : startPipe) {
-            double[] formattedPipe = setFormat(pipe);
-            StdDraw.filledRectangle(formattedPipe[0], formattedPipe[1],
-                    formattedPipe[2], formattedPipe[3]);
-        }
+    private Sprite getSpinnerSprite(int i) {
+        return getSpinnerSprite(i, Math.floorMod((int) Math.floor(entities.angle(i) / SPIN_STEP), 360 / SPIN_STEP));
+    }
 
-        for (int[] exit : exitPipe) {
-            double[] formattedExit = setFormat(exit);
-            StdDraw.filledRectangle(formattedExit[0], formattedExit[1],
-                    formattedExit[2], formattedExit[3]);
+    /**
+     * Returns the spike sprite of a spinner turned by the given number of spin steps,
+     * creating it on first use.
+     *
+     * @param i Entity index
+     * @param step Spin step, from 0 to 360 / SPIN_STEP - 1
+     * @return The rotated sprite
+     */
+    private Sprite getSpinnerSprite(int i, int step) {
+        if (spinnerSprites == null) {
+            spinnerSprites = new Sprite[entities.size()][];
+        }
+        if (spinnerSprites[i] == null) {
+            spinnerSprites[i] = new Sprite[360 / SPIN_STEP];
+        }
+        if (spinnerSprites[i][step] == null) {
+            EntityArray definitions = entities.getEntities();
+            spinnerSprites[i][step] = SpriteCache.get(spikeFile, definitions.halfWidth(i) * 2,
+                    definitions.halfHeight(i) * 2, step * SPIN_STEP);
         }
+        return spinnerSprites[i][step];
+    }
+
+    /**
+     * Draws the player.
+     *
+     * @param renderer Target of the frame
+     * @param alpha Fraction of the next tick that has elapsed
+     */
+    private void drawPlayer(Renderer renderer, double alpha) {
+        player.draw(renderer, alpha);
+    }
+
+    /**
+     * Writes the complete simulation state of the map and its player into a buffer.
+     *
+     * @param buffer Buffer receiving STATE_SIZE values
+     * @param offset Index of the first value
+     */
+    public void saveState(double[] buffer, int offset) {
+        buffer[offset] = player.getX();
+        buffer[offset + 1] = player.getY();
+        buffer[offset + 2] = player.getVelocityY();
+        buffer[offset + 3] = player.getFacing();
+        buffer[offset + 4] = firstTouch ? 1 : 0;
+        buffer[offset + 5] = buttonPressNum;
+        buffer[offset + 6] = isDoorOpen ? 1 : 0;
+        buffer[offset + 7] = isPressed ? 1 : 0;
+        buffer[offset + 8] = nowPressing ? 1 : 0;
+        buffer[offset + 9] = doorOffset;
+        buffer[offset + 10] = deathCount;
+        buffer[offset + 11] = entityTick;
+        buffer[offset + 12] = carrier;
+    }
+
+    /**
+     * Restores a state written by saveState(). The player and the entities are not interpolated
+     * across the jump.
+     *
+     * @param buffer Buffer holding STATE_SIZE values
+     * @param offset Index of the first value
+     */
+    public void loadState(double[] buffer, int offset) {
+        player.setX(buffer[offset]);
+        player.setY(buffer[offset + 1]);
+        player.savePreviousPosition();
+        player.setVelocityY(buffer[offset + 2]);
+        player.setFacing((int) buffer[offset + 3]);
+        firstTouch = buffer[offset + 4] != 0;
+        buttonPressNum = (int) buffer[offset + 5];
+        isDoorOpen = buffer[offset + 6] != 0;
+        isPressed = buffer[offset + 7] != 0;
+        nowPressing = buffer[offset + 8] != 0;
+        doorOffset = buffer[offset + 9];
+        deathCount = (int) buffer[offset + 10];
+        entityTick = (int) buffer[offset + 11];
+        carrier = (int) buffer[offset + 12];
+        entities.update(entityTick);
     }
 
     /**
@@ -0,0 +1,157 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Uniform grid index over the rectangles of a level.
+ *
+ * The grid is built once per level and never changes afterwards, so it can be
+ * shared between any number of maps. Each cell lists the indices of the
+ * rectangles that touch it, which lets collision checks test only the cells
+ * around the player instead of every rectangle.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+/**
+ * Immutable spatial index mapping grid cells to rectangle indices.
+ */
+public class ObstacleGrid {
+    private final double cellSize;
+    private final double originX;
+    private final double originY;
+    private final int columns;
+    private final int rows;
+
+    // Cell c holds cellItems[cellStart[c]] .. cellItems[cellStart[c + 1] - 1], in ascending order
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    /**
+     * Builds the grid for the given rectangles.
+     *
+     * @param rects The rectangles to index
+     * @param cellSize Width and height of a grid cell
+     */
+    public ObstacleGrid(RectArray rects, double cellSize) {
+        this.cellSize = cellSize;
+
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < rects.size(); i++) {
+            minX = Math.min(minX, rects.minX(i));
+            minY = Math.min(minY, rects.minY(i));
+            maxX = Math.max(maxX, rects.maxX(i));
+            maxY = Math.max(maxY, rects.maxY(i));
+        }
+        if (rects.size() == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        this.originX = minX;
+        this.originY = minY;
+        this.columns = (int) Math.floor((maxX - minX) / cellSize) + 1;
+        this.rows = (int) Math.floor((maxY - minY) / cellSize) + 1;
+
+        // First pass counts the rectangles per cell, second pass fills them in
+        int[] counts = new int[columns * rows];
+        for (int i = 0; i < rects.size(); i++) {
+            for (int row = row(rects.minY(i)); row <= row(rects.maxY(i)); row++) {
+                for (int column = column(rects.minX(i)); column <= column(rects.maxX(i)); column++) {
+                    counts[row * columns + column]++;
+                }
+            }
+        }
+
+        cellStart = new int[columns * rows + 1];
+        for (int cell = 0; cell < counts.length; cell++) {
+            cellStart[cell + 1] = cellStart[cell] + counts[cell];
+        }
+
+        cellItems = new int[cellStart[counts.length]];
+        int[] fill = new int[columns * rows];
+        for (int i = 0; i < rects.size(); i++) {
+            for (int row = row(rects.minY(i)); row <= row(rects.maxY(i)); row++) {
+                for (int column = column(rects.minX(i)); column <= column(rects.maxX(i)); column++) {
+                    int cell = row * columns + column;
+                    cellItems[cellStart[cell] + fill[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the indices of all rectangles touching the cells covered by the given box.
+     * Every rectangle that intersects the box is included. Indices are written in
+     * ascending order without duplicates, so scanning them gives the same first
+     * match as scanning every rectangle.
+     *
+     * @param minX Left edge of the query box
+     * @param minY Bottom edge of the query box
+     * @param maxX Right edge of the query box
+     * @param maxY Top edge of the query box
+     * @param out Buffer receiving the indices, at least as long as the rectangle set
+     * @return Number of indices written to out
+     */
+    public int query(double minX, double minY, double maxX, double maxY, int[] out) {
+        int count = 0;
+        int firstRow = row(minY);
+        int lastRow = row(maxY);
+        int firstColumn = column(minX);
+        int lastColumn = column(maxX);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int cell = row * columns + column;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    count = insertSorted(out, count, cellItems[k]);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inserts an index into the sorted prefix of the buffer unless it is already there.
+     *
+     * @param out Buffer holding count sorted indices
+     * @param count Number of indices currently in the buffer
+     * @param index Index to insert
+     * @return The new number of indices
+     */
+    private int insertSorted(int[] out, int count, int index) {
+        int position = count;
+        while (position > 0 && out[position - 1] > index) {
+            position--;
+        }
+        if (position > 0 && out[position - 1] == index) {
+            return count;
+        }
+        System.arraycopy(out, position, out, position + 1, count - position);
+        out[position] = index;
+        return count + 1;
+    }
+
+    /**
+     * Returns the grid column containing x, clamped to the grid.
+     *
+     * @param x The x-coordinate
+     * @return The column index
+     */
+    private int column(double x) {
+        int column = (int) Math.floor((x - originX) / cellSize);
+        return Math.max(0, Math.min(columns - 1, column));
+    }
+
+    /**
+     * Returns the grid row containing y, clamped to the grid.
+     *
+     * @param y The y-coordinate
+     * @return The row index
+     */
+    private int row(double y) {
+        int row = (int) Math.floor((y - originY) / cellSize);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+}
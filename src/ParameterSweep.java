@@ -0,0 +1,439 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Batch tool for tuning the physics parameters of a stage.
+ *
+ * Every combination of gravity, horizontal velocity and jump velocity in the
+ * given ranges is simulated headless, spread over all cores with fork-join.
+ * For each combination the sweep reports:
+ *  - the jump height and horizontal reach, measured by running the real Map
+ *    physics on a test level made of a single ledge,
+ *  - which platforms of the level can be reached from the spawn platform,
+ *    judged by whether the measured jump arc covers the height and gap between
+ *    two platforms (walls and ceilings in between are not considered),
+ *  - optionally the time to clear the stage, found by the Solver.
+ *
+ * The stage rules (key mapping, bouncing, button presses) are taken from the
+ * chosen stage of the game, only the three physics values change.
+ *
+ * Usage: java ParameterSweep [gravity=min:max:count] [velocityX=min:max:count]
+ *        [velocityY=min:max:count] [stage=number] [clear=maxStates] [out=file.csv]
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel, headless sweep over Stage physics parameters.
+ */
+public class ParameterSweep {
+    private static final int LEDGE_TOP = 1000;  // Test ledge, far from anything else
+    private static final int MAX_AIR_TICKS = 5000;
+    private static final int BATCH = 64;  // Combinations measured by one fork-join leaf
+
+    // Test level with a single ledge the player jumps off to the right
+    private static final Level jumpLevel = new Level(800, 600, 20, LEDGE_TOP + 10,
+            new int[][]{{0, LEDGE_TOP - 30, 20, LEDGE_TOP}}, new int[0][], new double[0],
+            new int[]{-100, -100, -90, -90}, new int[]{-100, -100, -90, -95},
+            new int[]{-200, -200, -190, -190}, new int[][]{{-300, -300, -290, -290}},
+            new int[][]{{-400, -400, -390, -390}, {-400, -400, -390, -390}});
+
+    private final Stage baseStage;
+    private final Level level;
+    private final double[] gravities;
+    private final double[] velocitiesX;
+    private final double[] velocitiesY;
+    private final int clearStates;
+    private final ForkJoinPool pool;
+
+    // Standable surfaces of the level: obstacle tops and the button floor
+    private final double[] surfaceTop;
+    private final double[] surfaceMinX;
+    private final double[] surfaceMaxX;
+    private final int startSurface;
+
+    // Results, one entry per combination
+    private final double[] jumpHeights;
+    private final double[] reaches;
+    private final int[] airTicks;
+    private final long[] reachable;
+    private final int[] clearTicks;
+
+    /**
+     * Prepares a sweep.
+     *
+     * @param baseStage Stage whose rules are kept while the physics values change
+     * @param level The level the platforms and the solver use
+     * @param gravities Gravity values to try
+     * @param velocitiesX Horizontal velocities to try
+     * @param velocitiesY Jump velocities to try
+     * @param clearStates State limit of the solver per combination, 0 to skip the time to clear
+     * @param pool The fork-join pool running the sweep
+     */
+    public ParameterSweep(Stage baseStage, Level level, double[] gravities, double[] velocitiesX,
+                          double[] velocitiesY, int clearStates, ForkJoinPool pool) {
+        this.baseStage = baseStage;
+        this.level = level;
+        this.gravities = gravities;
+        this.velocitiesX = velocitiesX;
+        this.velocitiesY = velocitiesY;
+        this.clearStates = clearStates;
+        this.pool = pool;
+
+        RectArray obstacles = level.getObstacles();
+        RectArray buttonFloor = level.getButtonFloor();
+        int surfaces = obstacles.size() + 1;
+        if (surfaces > 64) {
+            throw new IllegalArgumentException("Level has more than 64 surfaces");
+        }
+        surfaceTop = new double[surfaces];
+        surfaceMinX = new double[surfaces];
+        surfaceMaxX = new double[surfaces];
+        for (int i = 0; i < obstacles.size(); i++) {
+            surfaceTop[i] = obstacles.maxY(i);
+            surfaceMinX[i] = obstacles.minX(i);
+            surfaceMaxX[i] = obstacles.maxX(i);
+        }
+        surfaceTop[surfaces - 1] = buttonFloor.maxY(0);
+        surfaceMinX[surfaces - 1] = buttonFloor.minX(0);
+        surfaceMaxX[surfaces - 1] = buttonFloor.maxX(0);
+        startSurface = findSurfaceBelow(level.getSpawnX(), level.getSpawnY());
+
+        int count = gravities.length * velocitiesX.length * velocitiesY.length;
+        jumpHeights = new double[count];
+        reaches = new double[count];
+        airTicks = new int[count];
+        reachable = new long[count];
+        clearTicks = new int[count];
+    }
+
+    /**
+     * @return The number of parameter combinations
+     */
+    public int getCombinationCount() {
+        return gravities.length * velocitiesX.length * velocitiesY.length;
+    }
+
+    /**
+     * Measures every combination on the pool.
+     */
+    public void run() {
+        pool.invoke(new SweepTask(0, getCombinationCount()));
+    }
+
+    /**
+     * Builds the stage of one combination.
+     *
+     * @param combination Index of the combination
+     * @return The stage with the swept physics values
+     */
+    private Stage createStage(int combination) {
+        int perGravity = velocitiesX.length * velocitiesY.length;
+        double gravity = gravities[combination / perGravity];
+        double velocityX = velocitiesX[combination / velocitiesY.length % velocitiesX.length];
+        double velocityY = velocitiesY[combination % velocitiesY.length];
+        return baseStage.withRule(StageRule.physics(gravity, velocityX, velocityY));
+    }
+
+    /**
+     * Measures one combination and stores its results.
+     *
+     * @param combination Index of the combination
+     * @param dxs Buffer for the horizontal offsets of the jump arc
+     * @param dys Buffer for the vertical offsets of the jump arc
+     * @param bestHeights Buffer for the best height reachable beyond each offset
+     */
+    private void measure(int combination, double[] dxs, double[] dys, double[] bestHeights) {
+        Stage stage = createStage(combination);
+        Map map = new Map(stage, new Player(jumpLevel.getSpawnX(), jumpLevel.getSpawnY()), jumpLevel);
+        Player player = map.getPlayer();
+
+        // Movement is ignored until the player first lands on the ledge
+        map.step(0);
+        if (player.getY() != LEDGE_TOP + 10) {
+            jumpHeights[combination] = Double.NaN;
+            reaches[combination] = Double.NaN;
+            clearTicks[combination] = -1;
+            return;
+        }
+
+        // Jump to the right, keep holding until the player has dropped below the lowest platform
+        boolean canJump = stage.getRules().getUpCode() >= 0;
+        int hold = Map.INPUT_RIGHT | (canJump ? Map.INPUT_UP : 0);
+        double startX = player.getX();
+        double startY = player.getY();
+        double height = 0;
+        double reach = 0;
+        int air = 0;
+        int samples = 0;
+        while (samples < MAX_AIR_TICKS) {
+            map.step(hold);
+            double dx = player.getX() - startX;
+            double dy = player.getY() - startY;
+            dxs[samples] = dx;
+            dys[samples] = dy;
+            samples++;
+            height = Math.max(height, dy);
+            if (dy >= 0) {
+                reach = dx;
+                air = samples;
+            }
+            if (dy < -level.getHeight()) {
+                break;
+            }
+        }
+        jumpHeights[combination] = height;
+        reaches[combination] = reach;
+        airTicks[combination] = air;
+
+        // Horizontal offsets only grow, so the best height beyond an offset is a suffix maximum
+        double best = Double.NEGATIVE_INFINITY;
+        for (int t = samples - 1; t >= 0; t--) {
+            best = Math.max(best, dys[t]);
+            bestHeights[t] = best;
+        }
+        reachable[combination] = findReachableSurfaces(dxs, bestHeights, samples);
+
+        if (clearStates > 0) {
+            int[] path = new Solver(stage, level, pool, clearStates).solve();
+            clearTicks[combination] = path == null ? -1 : path.length;
+        }
+    }
+
+    /**
+     * Walks the platform graph from the spawn platform. A platform is reachable from
+     * another if the jump arc passes the gap between them at least as high as the step up.
+     *
+     * @param dxs Horizontal offsets of the jump arc
+     * @param bestHeights Best height reachable at or beyond each offset
+     * @param samples Number of samples in the arc
+     * @return Bitmask of reachable surfaces
+     */
+    private long findReachableSurfaces(double[] dxs, double[] bestHeights, int samples) {
+        if (startSurface < 0) {
+            return 0;
+        }
+        long visited = 1L << startSurface;
+        int[] queue = new int[surfaceTop.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = startSurface;
+        while (head < tail) {
+            int from = queue[head++];
+            for (int to = 0; to < surfaceTop.length; to++) {
+                if ((visited & 1L << to) != 0) {
+                    continue;
+                }
+                // The player is 20 wide, so its center can stand 10 beyond either edge
+                double gap = Math.max(0, Math.max(surfaceMinX[to] - surfaceMaxX[from],
+                        surfaceMinX[from] - surfaceMaxX[to]) - 20);
+                double rise = surfaceTop[to] - surfaceTop[from];
+                int first = firstSampleAtOrBeyond(dxs, samples, gap);
+                if (first < samples && bestHeights[first] >= rise) {
+                    visited |= 1L << to;
+                    queue[tail++] = to;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Finds the first sample of the jump arc whose horizontal offset reaches the gap.
+     *
+     * @param dxs Horizontal offsets of the arc, non-decreasing
+     * @param samples Number of samples
+     * @param gap The gap to cross
+     * @return The index of the sample, or samples if the arc never gets that far
+     */
+    private static int firstSampleAtOrBeyond(double[] dxs, int samples, double gap) {
+        int low = 0;
+        int high = samples;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (dxs[middle] >= gap) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the highest surface the player falls onto from the given point.
+     *
+     * @param x X-coordinate of the player
+     * @param y Y-coordinate of the player
+     * @return Index of the surface, or -1 if there is none
+     */
+    private int findSurfaceBelow(double x, double y) {
+        int found = -1;
+        for (int i = 0; i < surfaceTop.length; i++) {
+            if (surfaceTop[i] + 10 <= y && x + 10 > surfaceMinX[i] && x < surfaceMaxX[i] + 10
+                    && (found < 0 || surfaceTop[i] > surfaceTop[found])) {
+                found = i;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Writes the results as CSV, one line per combination.
+     *
+     * @param out Writer receiving the table
+     */
+    public void writeCsv(PrintWriter out) {
+        out.println("gravity,velocityX,velocityY,jumpHeight,reach,airTicks,reachablePlatforms,"
+                + "unreachable,clearTicks");
+        for (int c = 0; c < getCombinationCount(); c++) {
+            Stage stage = createStage(c);
+            StringBuilder unreachable = new StringBuilder();
+            for (int i = 0; i < surfaceTop.length; i++) {
+                if ((reachable[c] & 1L << i) == 0) {
+                    if (unreachable.length() > 0) {
+                        unreachable.append(' ');
+                    }
+                    unreachable.append(i);
+                }
+            }
+            String clear = clearStates <= 0 ? "" : String.valueOf(clearTicks[c]);
+            out.printf("%.4f,%.4f,%.4f,%.2f,%.2f,%d,%d/%d,%s,%s%n", stage.getGravity(), stage.getVelocityX(),
+                    stage.getVelocityY(), jumpHeights[c], reaches[c], airTicks[c], Long.bitCount(reachable[c]),
+                    surfaceTop.length, unreachable, clear);
+        }
+    }
+
+    /**
+     * Measures a contiguous range of combinations, splitting it until it is small enough.
+     */
+    private class SweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        /**
+         * @param from First combination of this task
+         * @param to One past the last combination of this task
+         */
+        private SweepTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH) {
+                double[] dxs = new double[MAX_AIR_TICKS];
+                double[] dys = new double[MAX_AIR_TICKS];
+                double[] bestHeights = new double[MAX_AIR_TICKS];
+                for (int c = from; c < to; c++) {
+                    measure(c, dxs, dys, bestHeights);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SweepTask(from, middle), new SweepTask(middle, to));
+        }
+    }
+
+    /**
+     * Parses a range given as min:max:count, or a single value.
+     *
+     * @param text The range
+     * @return The evenly spaced values of the range
+     */
+    private static double[] parseRange(String text) {
+        String[] parts = text.split(":");
+        if (parts.length == 1) {
+            return new double[]{Double.parseDouble(parts[0])};
+        }
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected min:max:count, got " + text);
+        }
+        double min = Double.parseDouble(parts[0]);
+        double max = Double.parseDouble(parts[1]);
+        int count = Integer.parseInt(parts[2]);
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be positive in " + text);
+        }
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = count == 1 ? min : min + (max - min) * i / (count - 1);
+        }
+        return values;
+    }
+
+    /**
+     * Runs a sweep from the command line and writes the CSV table.
+     *
+     * @param args Ranges and options as name=value pairs
+     * @throws IOException If the output file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        double[] gravities = parseRange("-2.5:-0.25:10");
+        double[] velocitiesX = parseRange("2:6:10");
+        double[] velocitiesY = parseRange("6:26:10");
+        int stageNumber = 1;
+        int clearStates = 0;
+        String output = null;
+
+        try {
+            for (String arg : args) {
+                int split = arg.indexOf('=');
+                String name = split < 0 ? arg : arg.substring(0, split);
+                String value = split < 0 ? "" : arg.substring(split + 1);
+                if (name.equals("gravity")) {
+                    gravities = parseRange(value);
+                } else if (name.equals("velocityX")) {
+                    velocitiesX = parseRange(value);
+                } else if (name.equals("velocityY")) {
+                    velocitiesY = parseRange(value);
+                } else if (name.equals("stage")) {
+                    stageNumber = Integer.parseInt(value);
+                } else if (name.equals("clear")) {
+                    clearStates = Integer.parseInt(value);
+                } else if (name.equals("out")) {
+                    output = value;
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: java ParameterSweep [gravity=min:max:count] [velocityX=min:max:count] "
+                    + "[velocityY=min:max:count] [stage=number] [clear=maxStates] [out=file.csv]");
+            System.exit(1);
+        }
+
+        ArrayList<Stage> stages = DevinIsler.createStages();
+        if (stageNumber < 1 || stageNumber > stages.size()) {
+            System.err.println("Stage must be between 1 and " + stages.size());
+            System.exit(1);
+        }
+
+        ParameterSweep sweep = new ParameterSweep(stages.get(stageNumber - 1), Level.getDefault(),
+                gravities, velocitiesX, velocitiesY, clearStates, ForkJoinPool.commonPool());
+        long start = System.nanoTime();
+        sweep.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        PrintWriter out = output == null ? new PrintWriter(System.out) : new PrintWriter(new FileWriter(output));
+        sweep.writeCsv(out);
+        out.flush();
+        if (output != null) {
+            out.close();
+        }
+        System.err.printf("%d combinations in %.2f s on %d threads%n", sweep.getCombinationCount(), seconds,
+                ForkJoinPool.commonPool().getParallelism());
+    }
+}
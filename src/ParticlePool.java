@@ -0,0 +1,204 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Short-lived particles for deaths, landings and the sliding door.
+ *
+ * Every particle is a slot in a set of primitive arrays of fixed capacity.
+ * Emitting fills slots at the end, and a particle that runs out of life is
+ * replaced by the last live one, so the live particles always sit in the
+ * first count slots and one loop over them moves them all. When the pool is
+ * full new particles are dropped. The random numbers come from a xorshift
+ * generator held in a long, so neither emitting, ticking nor drawing
+ * allocates anything, and the colours of every fade level are prepared in the
+ * constructor.
+ *
+ * Particles are only decoration. They are not part of the Map state, so the
+ * solver, replays and rewinding ignore them.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.awt.Color;
+
+/**
+ * Fixed-capacity particle pool simulated once per tick.
+ */
+public class ParticlePool {
+    // Particle kinds
+    public static final int DUST = 0;
+    public static final int BURST = 1;
+    public static final int SPARK = 2;
+
+    // Per kind: pull down per tick, drag per tick, half size and the colour at full life
+    private static final double[] GRAVITY = {0.0, -0.12, -0.25};
+    private static final double[] DRAG = {0.90, 0.98, 0.97};
+    private static final double[] SIZE = {2.0, 2.5, 1.5};
+    private static final Color[] COLORS = {new Color(150, 140, 120), new Color(200, 30, 30), new Color(255, 210, 60)};
+    private static final int FADE_LEVELS = 8;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] velocityX;
+    private final double[] velocityY;
+    private final int[] life;
+    private final int[] maxLife;
+    private final byte[] kind;
+    private final Color[][] palette = new Color[COLORS.length][FADE_LEVELS];
+    private int count = 0;
+    private long seed = 0x2545F4914F6CDD1DL;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param capacity Largest number of live particles
+     */
+    public ParticlePool(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        velocityX = new double[capacity];
+        velocityY = new double[capacity];
+        life = new int[capacity];
+        maxLife = new int[capacity];
+        kind = new byte[capacity];
+        for (int k = 0; k < COLORS.length; k++) {
+            for (int level = 0; level < FADE_LEVELS; level++) {
+                int alpha = 255 * (level + 1) / FADE_LEVELS;
+                palette[k][level] = new Color(COLORS[k].getRed(), COLORS[k].getGreen(), COLORS[k].getBlue(), alpha);
+            }
+        }
+    }
+
+    /**
+     * Throws a burst of particles in every direction where the player died.
+     *
+     * @param centerX X-coordinate of the player
+     * @param centerY Y-coordinate of the player
+     */
+    public void burst(double centerX, double centerY) {
+        emit(BURST, centerX, centerY, 80, 0, 2 * Math.PI, 1.0, 4.5, 30, 70);
+    }
+
+    /**
+     * Kicks up dust to both sides of the player's feet.
+     *
+     * @param footX X-coordinate of the player
+     * @param footY Height of the ground under the player
+     */
+    public void dust(double footX, double footY) {
+        emit(DUST, footX, footY, 6, 0, 0.5, 0.8, 2.0, 12, 24);
+        emit(DUST, footX, footY, 6, Math.PI - 0.5, Math.PI, 0.8, 2.0, 12, 24);
+    }
+
+    /**
+     * Sprays a few sparks upwards from where the door scrapes along the floor.
+     *
+     * @param edgeX X-coordinate of the door
+     * @param edgeY Height of the floor line the door slides through
+     */
+    public void sparks(double edgeX, double edgeY) {
+        emit(SPARK, edgeX, edgeY, 3, Math.PI / 6, 5 * Math.PI / 6, 1.5, 3.5, 10, 20);
+    }
+
+    /**
+     * Emits particles with random directions, speeds and lifetimes in the given ranges.
+     *
+     * @param particleKind DUST, BURST or SPARK
+     * @param startX X-coordinate where the particles start
+     * @param startY Y-coordinate where the particles start
+     * @param number Number of particles
+     * @param minAngle Smallest direction in radians, counterclockwise from the x axis
+     * @param maxAngle Largest direction in radians
+     * @param minSpeed Smallest speed in pixels per tick
+     * @param maxSpeed Largest speed in pixels per tick
+     * @param minLife Shortest lifetime in ticks
+     * @param maxLifeTicks Longest lifetime in ticks
+     */
+    private void emit(int particleKind, double startX, double startY, int number, double minAngle,
+                      double maxAngle, double minSpeed, double maxSpeed, int minLife, int maxLifeTicks) {
+        for (int n = 0; n < number && count < x.length; n++) {
+            double angle = minAngle + (maxAngle - minAngle) * nextDouble();
+            double speed = minSpeed + (maxSpeed - minSpeed) * nextDouble();
+            int i = count++;
+            x[i] = startX;
+            y[i] = startY;
+            velocityX[i] = speed * Math.cos(angle);
+            velocityY[i] = speed * Math.sin(angle);
+            maxLife[i] = minLife + (int) ((maxLifeTicks - minLife + 1) * nextDouble());
+            life[i] = maxLife[i];
+            kind[i] = (byte) particleKind;
+        }
+    }
+
+    /**
+     * Returns the next random number of the xorshift generator.
+     *
+     * @return A number from 0 inclusive to 1 exclusive
+     */
+    private double nextDouble() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (seed >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Moves every live particle one tick and removes the ones whose life ran out.
+     */
+    public void tick() {
+        int i = 0;
+        while (i < count) {
+            if (--life[i] <= 0) {
+                count--;
+                x[i] = x[count];
+                y[i] = y[count];
+                velocityX[i] = velocityX[count];
+                velocityY[i] = velocityY[count];
+                life[i] = life[count];
+                maxLife[i] = maxLife[count];
+                kind[i] = kind[count];
+                continue;
+            }
+            int k = kind[i];
+            velocityX[i] *= DRAG[k];
+            velocityY[i] = velocityY[i] * DRAG[k] + GRAVITY[k];
+            x[i] += velocityX[i];
+            y[i] += velocityY[i];
+            i++;
+        }
+    }
+
+    /**
+     * Draws every live particle between its previous and current position, fading out with age.
+     *
+     * @param renderer Target of the frame
+     * @param alpha Fraction of the next tick that has elapsed, from 0 to 1
+     */
+    public void draw(Renderer renderer, double alpha) {
+        Color current = null;
+        for (int i = 0; i < count; i++) {
+            Color color = palette[kind[i]][(life[i] * FADE_LEVELS - 1) / maxLife[i]];
+            if (color != current) {
+                renderer.setPenColor(color);
+                current = color;
+            }
+            renderer.filledSquare(x[i] - velocityX[i] * (1 - alpha), y[i] - velocityY[i] * (1 - alpha),
+                    SIZE[kind[i]]);
+        }
+    }
+
+    /**
+     * Removes every particle.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * @return The number of live particles
+     */
+    public int size() {
+        return count;
+    }
+}
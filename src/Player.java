@@ -19,6 +19,8 @@ public class Player {
     // Position and dimensions
     private double x;
     private double y;
+    private double previousX;
+    private double previousY;
     private final double width = 20.0;
     private final double height = 20.0;
 
@@ -26,8 +28,11 @@ public class Player {
     private double velocityY = 0;
 
     // Visual representation
+    public static final int FACING_RIGHT = 0;
+    public static final int FACING_LEFT = 1;
     private final String[] files = {"./misc/ElephantRight.png", "./misc/ElephantLeft.png"};
-    private String file = files[0];  // Default to right-facing sprite
+    private int facing = FACING_RIGHT;  // Index into files
+    private Sprite[] sprites;
 
     /**
      * Constructs a player at the specified position.
@@ -38,6 +43,8 @@ public class Player {
     public Player(double x, double y) {
         this.x = x;
         this.y = y;
+        this.previousX = x;
+        this.previousY = y;
     }
 
     /**
@@ -79,20 +86,74 @@ public class Player {
     /**
      * Resets the player's position to the specified spawn point.
      *
-     * @param spawnPoints An array containing [x, y] coordinates
+     * @param spawnX The x-coordinate of the spawn point
+     * @param spawnY The y-coordinate of the spawn point
      */
-    public void respawn(int[] spawnPoints) {
-        setX(spawnPoints[0]);
-        setY(spawnPoints[1]);
+    public void respawn(int spawnX, int spawnY) {
+        setX(spawnX);
+        setY(spawnY);
+        savePreviousPosition();
         velocityY = 0;
         playerDirection('R');
     }
 
     /**
-     * Draws the player sprite at the current position.
+     * Remembers the current position as the start of the next tick.
+     * Called before each simulation tick so rendering can interpolate between ticks.
      */
-    public void draw() {
-        StdDraw.picture(x, y, file, width, height);
+    public void savePreviousPosition() {
+        previousX = x;
+        previousY = y;
+    }
+
+    /**
+     * Draws the player sprite between its previous and current tick positions.
+     *
+     * @param renderer Target of the frame
+     * @param alpha Fraction of the next tick that has elapsed, from 0 to 1
+     */
+    public void draw(Renderer renderer, double alpha) {
+        double drawX = previousX + (x - previousX) * alpha;
+        double drawY = previousY + (y - previousY) * alpha;
+        if (sprites == null) {
+            loadSprites();
+        }
+        sprites[facing].draw(renderer, drawX, drawY);
+    }
+
+    /**
+     * Prepares the right and left facing sprites at the player's size.
+     */
+    public void loadSprites() {
+        sprites = new Sprite[files.length];
+        for (int i = 0; i < files.length; i++) {
+            sprites[i] = getSprite(i, 1.0);
+        }
+    }
+
+    /**
+     * Prepares both facing sprites for their first draw, so turning around never stalls.
+     *
+     * @param renderer Target of the frames
+     */
+    public void prepareSprites(Renderer renderer) {
+        if (sprites == null) {
+            loadSprites();
+        }
+        for (Sprite sprite : sprites) {
+            renderer.prepare(sprite);
+        }
+    }
+
+    /**
+     * Returns the player's sprite for a facing at the player's size, e.g. translucent for ghosts.
+     *
+     * @param facing FACING_RIGHT or FACING_LEFT
+     * @param opacity Opacity from 0 to 1
+     * @return The prepared sprite
+     */
+    public Sprite getSprite(int facing, double opacity) {
+        return SpriteCache.get(files[facing], width, height, 0, opacity);
     }
 
     /**
@@ -112,13 +173,31 @@ public class Player {
      */
     public void playerDirection(char direction) {
         if (direction == 'R') {
-            file = files[0];
+            facing = FACING_RIGHT;
         }
         if (direction == 'L') {
-            file = files[1];
+            facing = FACING_LEFT;
         }
     }
 
+    /**
+     * Gets the player's facing direction.
+     *
+     * @return FACING_RIGHT or FACING_LEFT
+     */
+    public int getFacing() {
+        return facing;
+    }
+
+    /**
+     * Sets the player's facing direction.
+     *
+     * @param facing FACING_RIGHT or FACING_LEFT
+     */
+    public void setFacing(int facing) {
+        this.facing = facing;
+    }
+
     /**
      * Gets the player's vertical velocity.
      *
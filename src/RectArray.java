@@ -0,0 +1,178 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Structure-of-arrays holding a set of axis-aligned rectangles.
+ *
+ * Every rectangle is stored both as corners and as center/half-extents, so
+ * collision checks and drawing read precomputed primitives instead of
+ * converting the rectangle on every call. The rectangles of a level never
+ * change once compiled; only EntitySystem rewrites its set, the bounds of the
+ * moving entities, on every tick through update().
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compiled rectangles with min/max corners, centers and half-extents.
+ */
+public class RectArray {
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+    private final double[] centerX;
+    private final double[] centerY;
+    private final double[] halfWidth;
+    private final double[] halfHeight;
+
+    /**
+     * Compiles rectangles given in [xLeftDown, yLeftDown, xRightUp, yRightUp] format.
+     *
+     * @param rects The rectangles to compile
+     */
+    public RectArray(int[][] rects) {
+        this(rects.length);
+        for (int i = 0; i < rects.length; i++) {
+            set(i, rects[i][0], rects[i][1], rects[i][2], rects[i][3]);
+        }
+    }
+
+    /**
+     * Compiles rectangles stored as four 16-bit coordinates each, in
+     * [xLeftDown, yLeftDown, xRightUp, yRightUp] order, straight from a buffer.
+     * The buffer position moves past the rectangles.
+     *
+     * @param buffer Buffer positioned at the first coordinate
+     * @param count Number of rectangles to read
+     */
+    public RectArray(ByteBuffer buffer, int count) {
+        this(count);
+        for (int i = 0; i < count; i++) {
+            set(i, buffer.getShort(), buffer.getShort(), buffer.getShort(), buffer.getShort());
+        }
+    }
+
+    /**
+     * Allocates the arrays for the given number of rectangles, all empty at the origin.
+     *
+     * @param size Number of rectangles
+     */
+    public RectArray(int size) {
+        minX = new double[size];
+        minY = new double[size];
+        maxX = new double[size];
+        maxY = new double[size];
+        centerX = new double[size];
+        centerY = new double[size];
+        halfWidth = new double[size];
+        halfHeight = new double[size];
+    }
+
+    /**
+     * Stores one rectangle with its precomputed center and half-extents.
+     *
+     * @param i Rectangle index
+     * @param xLeftDown Left edge
+     * @param yLeftDown Bottom edge
+     * @param xRightUp Right edge
+     * @param yRightUp Top edge
+     */
+    private void set(int i, double xLeftDown, double yLeftDown, double xRightUp, double yRightUp) {
+        minX[i] = xLeftDown;
+        minY[i] = yLeftDown;
+        maxX[i] = xRightUp;
+        maxY[i] = yRightUp;
+        centerX[i] = (xRightUp + xLeftDown) / 2;
+        centerY[i] = (yRightUp + yLeftDown) / 2;
+        halfWidth[i] = (xRightUp - xLeftDown) / 2;
+        halfHeight[i] = (yRightUp - yLeftDown) / 2;
+    }
+
+    /**
+     * Moves one rectangle to new corners. Only the bounds of moving entities are ever moved.
+     *
+     * @param i Rectangle index
+     * @param xLeftDown Left edge
+     * @param yLeftDown Bottom edge
+     * @param xRightUp Right edge
+     * @param yRightUp Top edge
+     */
+    public void update(int i, double xLeftDown, double yLeftDown, double xRightUp, double yRightUp) {
+        set(i, xLeftDown, yLeftDown, xRightUp, yRightUp);
+    }
+
+    /**
+     * @return The number of rectangles
+     */
+    public int size() {
+        return minX.length;
+    }
+
+    /**
+     * @param i Rectangle index
+     * @return The left edge of the rectangle
+     */
+    public double minX(int i) {
+        return minX[i];
+    }
+
+    /**
+     * @param i Rectangle index
+     * @return The bottom edge of the rectangle
+     */
+    public double minY(int i) {
+        return minY[i];
+    }
+
+    /**
+     * @param i Rectangle index
+     * @return The right edge of the rectangle
+     */
+    public double maxX(int i) {
+        return maxX[i];
+    }
+
+    /**
+     * @param i Rectangle index
+     * @return The top edge of the rectangle
+     */
+    public double maxY(int i) {
+        return maxY[i];
+    }
+
+    /**
+     * @param i Rectangle index
+     * @return The x-coordinate of the rectangle center
+     */
+    public double centerX(int i) {
+        return centerX[i];
+    }
+
+    /**
+     * @param i Rectangle index
+     * @return The y-coordinate of the rectangle center
+     */
+    public double centerY(int i) {
+        return centerY[i];
+    }
+
+    /**
+     * @param i Rectangle index
+     * @return Half of the rectangle width
+     */
+    public double halfWidth(int i) {
+        return halfWidth[i];
+    }
+
+    /**
+     * @param i Rectangle index
+     * @return Half of the rectangle height
+     */
+    public double halfHeight(int i) {
+        return halfHeight[i];
+    }
+}
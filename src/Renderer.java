@@ -0,0 +1,128 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Drawing operations used by the game, independent of how frames reach the screen.
+ *
+ * Coordinates are world units with the origin in the lower left corner and y
+ * pointing up, like StdDraw. A frame starts with clear(), is drawn with the
+ * other operations and ends with show(), which presents it. StdDrawRenderer
+ * draws through StdDraw, Java2DRenderer renders actively onto a Canvas with
+ * page flipping.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.awt.Color;
+import java.awt.Font;
+
+/**
+ * Target of every draw call of Map, Player, Game and the overlays.
+ */
+public interface Renderer {
+    /**
+     * Starts a frame by filling the drawing area with white.
+     */
+    void clear();
+
+    /**
+     * Presents the frame drawn since the last clear().
+     */
+    void show();
+
+    /**
+     * Sets the color of the following shapes and text.
+     *
+     * @param color The color
+     */
+    void setPenColor(Color color);
+
+    /**
+     * Sets the font of the following text.
+     *
+     * @param font The font
+     */
+    void setFont(Font font);
+
+    /**
+     * Fills an axis-aligned rectangle.
+     *
+     * @param x X-coordinate of the center
+     * @param y Y-coordinate of the center
+     * @param halfWidth Half of the width
+     * @param halfHeight Half of the height
+     */
+    void filledRectangle(double x, double y, double halfWidth, double halfHeight);
+
+    /**
+     * Draws the outline of an axis-aligned rectangle.
+     *
+     * @param x X-coordinate of the center
+     * @param y Y-coordinate of the center
+     * @param halfWidth Half of the width
+     * @param halfHeight Half of the height
+     */
+    void rectangle(double x, double y, double halfWidth, double halfHeight);
+
+    /**
+     * Fills a square.
+     *
+     * @param x X-coordinate of the center
+     * @param y Y-coordinate of the center
+     * @param halfLength Half of the side length
+     */
+    void filledSquare(double x, double y, double halfLength);
+
+    /**
+     * Draws text centered on a point.
+     *
+     * @param x X-coordinate of the center
+     * @param y Y-coordinate of the center
+     * @param text The text
+     */
+    void text(double x, double y, String text);
+
+    /**
+     * Draws text starting at a point, vertically centered on it.
+     *
+     * @param x X-coordinate of the left end
+     * @param y Y-coordinate of the center
+     * @param text The text
+     */
+    void textLeft(double x, double y, String text);
+
+    /**
+     * Draws the text of a buffer centered on a point.
+     *
+     * @param x X-coordinate of the center
+     * @param y Y-coordinate of the center
+     * @param text The text
+     */
+    void text(double x, double y, TextBuffer text);
+
+    /**
+     * Draws the text of a buffer starting at a point, vertically centered on it.
+     *
+     * @param x X-coordinate of the left end
+     * @param y Y-coordinate of the center
+     * @param text The text
+     */
+    void textLeft(double x, double y, TextBuffer text);
+
+    /**
+     * Draws a prepared sprite centered on a point.
+     *
+     * @param x X-coordinate of the center
+     * @param y Y-coordinate of the center
+     * @param sprite The sprite
+     */
+    void picture(double x, double y, Sprite sprite);
+
+    /**
+     * Does the work of drawing a sprite for the first time ahead of the first frame.
+     *
+     * @param sprite The sprite
+     */
+    void prepare(Sprite sprite);
+}
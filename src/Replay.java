@@ -0,0 +1,175 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Replays a recorded run through the game logic without rendering.
+ *
+ * The stages are rebuilt from the recording header and every recorded tick is
+ * fed to Game.tick(int) as fast as the CPU allows. Because the game logic only
+ * depends on its input, the replay ends in exactly the state the recorded run
+ * did, which makes recordings usable for bug reproduction and regression checks.
+ *
+ * Usage: java Replay recording.olr [more recordings...]
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * Headless, max-speed replay of recordings written by InputRecorder.
+ */
+public class Replay {
+    private final ArrayList<Stage> stages;
+    private final DataInputStream in;
+    private long ticks = 0;
+
+    /**
+     * Opens a recording and reads its header.
+     *
+     * @param data The complete recording
+     * @throws IOException If the header is invalid
+     */
+    public Replay(byte[] data) throws IOException {
+        this.in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("Not a recording");
+        }
+        int version = in.readShort();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        int ticksPerSecond = in.readInt();
+        if (ticksPerSecond != Game.TICKS_PER_SECOND) {
+            throw new IOException("Recorded at " + ticksPerSecond + " ticks per second, the game runs at "
+                    + Game.TICKS_PER_SECOND);
+        }
+
+        int stageCount = in.readInt();
+        stages = new ArrayList<Stage>();
+        for (int i = 0; i < stageCount; i++) {
+            double gravity = in.readDouble();
+            double velocityX = in.readDouble();
+            double velocityY = in.readDouble();
+            int stageNumber = in.readInt();
+            int rightCode = in.readInt();
+            int leftCode = in.readInt();
+            int upCode = in.readInt();
+            boolean autoBounce = in.readBoolean();
+            int neededPress = in.readInt();
+            boolean flipSprite = in.readBoolean();
+            StageRule[] rules = {settings -> {
+                settings.setAutoBounce(autoBounce);
+                settings.setNeededPress(neededPress);
+                settings.setFlipSprite(flipSprite);
+            }};
+            String clue = in.readUTF();
+            String help = in.readUTF();
+            stages.add(new Stage(gravity, velocityX, velocityY, stageNumber,
+                    rightCode, leftCode, upCode, clue, help, rules));
+        }
+    }
+
+    /**
+     * Reads a recording file.
+     *
+     * @param path Path of the recording
+     * @return The opened replay
+     * @throws IOException If the file cannot be read or is invalid
+     */
+    public static Replay open(String path) throws IOException {
+        return new Replay(Files.readAllBytes(Paths.get(path)));
+    }
+
+    /**
+     * Runs every recorded tick through a fresh headless game.
+     * Stops early if the recorded player quit.
+     *
+     * @return The game in its final state
+     * @throws IOException If the recording is truncated inside a run
+     */
+    public Game run() throws IOException {
+        Game game = new Game(stages);
+        while (!game.getEndGame()) {
+            int inputs;
+            try {
+                inputs = (int) readVarLong();
+            } catch (EOFException e) {
+                break;
+            }
+
+            long length = readVarLong();
+            for (long i = 0; i < length && !game.getEndGame(); i++) {
+                game.tick(inputs);
+                ticks++;
+            }
+        }
+        return game;
+    }
+
+    /**
+     * Reads a variable-length value: the input or the repeat count of a run.
+     *
+     * @return The value
+     * @throws IOException If the recording ends inside the value
+     */
+    private long readVarLong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * @return The stages stored in the recording header
+     */
+    public ArrayList<Stage> getStages() {
+        return stages;
+    }
+
+    /**
+     * @return The number of ticks replayed so far
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Replays each recording given on the command line and prints where it ended.
+     *
+     * @param args Paths of the recordings
+     * @throws IOException If a recording cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: java Replay recording.olr [more recordings...]");
+            System.exit(1);
+        }
+
+        for (String path : args) {
+            long start = System.nanoTime();
+            Replay replay = Replay.open(path);
+            Game game = replay.run();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Player player = game.getPlayer();
+            System.out.printf("%s: %d ticks in %.3f s (%.0f ticks/s), state %s, stage %d, deaths %d, "
+                            + "play ticks %d, player (%.4f, %.4f)%n",
+                    path, replay.getTicks(), seconds, replay.getTicks() / seconds, game.getState(),
+                    game.getStageIndex() + 1, game.getDeathCount(), game.getPlayTicks(),
+                    player.getX(), player.getY());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Keeps the recent history of a stage so the player can rewind time.
+ *
+ * Every tick the state of the Map is written with Map.saveState() into one
+ * preallocated array of doubles used as a ring buffer: the position, velocity
+ * and facing of the player, the button and door state and the death count.
+ * Once the buffer is full the oldest tick is overwritten. Saving and restoring
+ * a tick are array copies into a fixed slot, so holding rewind costs the same
+ * with one second or several minutes of history and allocates nothing.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+/**
+ * Fixed-size ring buffer of per-tick Map snapshots.
+ */
+public class RewindBuffer {
+    private final double[] states;
+    private final int capacity;
+    private int newest = -1;  // Slot of the most recent snapshot
+    private int size = 0;
+
+    /**
+     * Allocates the buffer.
+     *
+     * @param capacity Number of ticks kept
+     */
+    public RewindBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Rewind capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.states = new double[capacity * Map.STATE_SIZE];
+    }
+
+    /**
+     * Stores the current state of a map, overwriting the oldest snapshot when full.
+     *
+     * @param map The map to save
+     */
+    public void save(Map map) {
+        newest = (newest + 1) % capacity;
+        map.saveState(states, newest * Map.STATE_SIZE);
+        if (size < capacity) {
+            size++;
+        }
+    }
+
+    /**
+     * Restores the most recent snapshot and removes it, so repeated calls walk back in time.
+     *
+     * @param map The map to restore
+     * @return false if there is no history left
+     */
+    public boolean restore(Map map) {
+        if (size == 0) {
+            return false;
+        }
+        map.loadState(states, newest * Map.STATE_SIZE);
+        newest = (newest + capacity - 1) % capacity;
+        size--;
+        return true;
+    }
+
+    /**
+     * Forgets the history, e.g. when a new stage starts.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return The number of ticks that can be rewound
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The maximum number of ticks kept
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,404 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Finds the fastest input sequence that clears each stage.
+ *
+ * The solver runs a breadth-first search over simulation states. A state is
+ * the full Map state (player position, vertical velocity, button and door),
+ * deduplicated on a quantized key in a primitive hash set. Every frontier is
+ * expanded in parallel with fork-join: each worker steps its own headless Map
+ * with every allowed input, then the children are merged in a fixed order so
+ * the result does not depend on thread timing. Stage rules such as reversed
+ * keys, constant bouncing and the five button presses come from Map itself,
+ * so the solver needs no special cases. The only stage-specific input rule is
+ * that a stage without an up key cannot jump on demand.
+ *
+ * The result is printed per stage and written as a recording that Replay
+ * plays back through the real game.
+ *
+ * Usage: java Solver [output.olr]
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel breadth-first solver for a single stage.
+ */
+public class Solver {
+    private static final double QUANTUM = 0.5;  // Positions and velocities closer than this count as equal
+    private static final int CHUNK = 256;  // Frontier nodes expanded by one fork-join leaf
+    private static final int MAX_TICKS = 120 * Game.TICKS_PER_SECOND;
+    // Heap per visited state at the worst moment: the tree arrays (13 doubles, a parent and an
+    // input, 109 bytes) while growing hold the old and the doubled copy, the visited set holds
+    // a long at half load while it rehashes, and the frontier's children wait in their chunks
+    private static final int BYTES_PER_STATE = 3 * 109 + 48 + 117;
+
+    private final Stage stage;
+    private final Level level;
+    private final int[] allowedInputs;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Map> simulations;
+    private final int maxStates;
+    private final boolean timed;  // Whether moving entities make the tick part of the state
+
+    // Search tree, one entry per visited state
+    private double[] states = new double[1024 * Map.STATE_SIZE];
+    private int[] parents = new int[1024];
+    private byte[] inputs = new byte[1024];
+    private int nodeCount = 0;
+    private final LongHashSet visited = new LongHashSet(1 << 16);
+
+    /**
+     * Prepares a solver for one stage.
+     *
+     * @param stage The stage to clear
+     * @param level The level geometry
+     * @param pool The fork-join pool expanding the frontiers
+     */
+    public Solver(Stage stage, Level level, ForkJoinPool pool) {
+        this(stage, level, pool, getDefaultMaxStates());
+    }
+
+    /**
+     * Returns how many states a search may visit in half of the heap, leaving the rest to the
+     * simulations and the rest of the program.
+     *
+     * @return The state limit used when none is given
+     */
+    public static int getDefaultMaxStates() {
+        long fitting = Runtime.getRuntime().maxMemory() / 2 / BYTES_PER_STATE;
+        return (int) Math.min(fitting, Integer.MAX_VALUE / Map.STATE_SIZE);
+    }
+
+    /**
+     * Prepares a solver for one stage that gives up after visiting the given number of states.
+     *
+     * @param stage The stage to clear
+     * @param level The level geometry
+     * @param pool The fork-join pool expanding the frontiers
+     * @param maxStates Number of distinct states after which the search fails
+     */
+    public Solver(Stage stage, Level level, ForkJoinPool pool, int maxStates) {
+        this.stage = stage;
+        this.maxStates = maxStates;
+        this.level = level;
+        this.pool = pool;
+        this.timed = level.getEntities().size() > 0;
+        this.simulations = ThreadLocal.withInitial(() -> new Map(stage, new Player(level.getSpawnX(), level.getSpawnY()), level));
+
+        boolean canJump = stage.getRules().getUpCode() >= 0;
+        int count = canJump ? 8 : 4;
+        allowedInputs = new int[count];
+        int next = 0;
+        for (int bits = 0; bits < 8; bits++) {
+            if (canJump || (bits & Map.INPUT_UP) == 0) {
+                allowedInputs[next++] = bits;
+            }
+        }
+    }
+
+    /**
+     * Searches for the shortest input sequence from the stage start to the exit pipe.
+     *
+     * @return The input of every tick, or null if the exit is not reachable within the limits
+     */
+    public int[] solve() {
+        double[] start = new double[Map.STATE_SIZE];
+        new Map(stage, new Player(level.getSpawnX(), level.getSpawnY()), level).saveState(start, 0);
+        addNode(start, 0, -1, 0);
+        visited.add(quantize(start, 0, timed));
+
+        int levelStart = 0;
+        for (int depth = 0; depth < MAX_TICKS; depth++) {
+            int levelEnd = nodeCount;
+            if (levelStart == levelEnd) {
+                return null;
+            }
+
+            int chunkCount = (levelEnd - levelStart + CHUNK - 1) / CHUNK;
+            Chunk[] chunks = new Chunk[chunkCount];
+            pool.invoke(new ExpandTask(chunks, 0, chunkCount, levelStart, levelEnd));
+
+            // Merge in chunk order so the result is the same on any number of cores
+            for (Chunk chunk : chunks) {
+                if (chunk.goalParent >= 0) {
+                    return buildPath(chunk.goalParent, chunk.goalInput, depth + 1);
+                }
+            }
+            for (Chunk chunk : chunks) {
+                for (int i = 0; i < chunk.count; i++) {
+                    if (nodeCount >= maxStates) {
+                        return null;
+                    }
+                    if (visited.add(chunk.keys[i])) {
+                        addNode(chunk.states, i * Map.STATE_SIZE, chunk.parents[i], chunk.inputs[i]);
+                    }
+                }
+            }
+            levelStart = levelEnd;
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of distinct states visited by the last search
+     */
+    public int getVisitedCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Expands one chunk of the frontier with every allowed input.
+     *
+     * @param chunk Receives the children and the first goal found
+     * @param from First frontier node of the chunk
+     * @param to One past the last frontier node of the chunk
+     */
+    private void expand(Chunk chunk, int from, int to) {
+        Map map = simulations.get();
+        for (int node = from; node < to; node++) {
+            int deaths = (int) states[node * Map.STATE_SIZE + 10];
+            for (int input : allowedInputs) {
+                map.loadState(states, node * Map.STATE_SIZE);
+                map.step(input);
+
+                if (map.getDeathCount() > deaths) {
+                    continue;
+                }
+                if (map.changeStage()) {
+                    chunk.goalParent = node;
+                    chunk.goalInput = input;
+                    return;
+                }
+                chunk.add(map, node, input, timed);
+            }
+        }
+    }
+
+    /**
+     * Packs the parts of a state that matter for the search into one key:
+     * quantized x, y and vertical velocity, first touch, button presses and the door.
+     * On a level with moving entities the same place at another tick is another state,
+     * so the entity tick is packed into the top bits as well.
+     * Reads the layout written by Map.saveState().
+     *
+     * @param buffer Buffer holding the state
+     * @param offset Index of the first value
+     * @param timed Whether the entity tick is part of the key
+     * @return The key
+     */
+    private static long quantize(double[] buffer, int offset, boolean timed) {
+        long x = Math.round(buffer[offset] / QUANTUM) & 0x3FFF;
+        long y = Math.round(buffer[offset + 1] / QUANTUM) & 0x3FFF;
+        long velocityY = (Math.round(buffer[offset + 2] / QUANTUM) + 2048) & 0xFFF;
+        long firstTouch = (long) buffer[offset + 4];
+        long presses = Math.min(7, (long) buffer[offset + 5]);
+        long doorOpen = (long) buffer[offset + 6];
+        long isPressed = (long) buffer[offset + 7];
+        long nowPressing = (long) buffer[offset + 8];
+        long entityTick = timed ? (long) buffer[offset + 11] & 0x1FFFF : 0;
+        return x | y << 14 | velocityY << 28 | firstTouch << 40 | presses << 41
+                | doorOpen << 44 | isPressed << 45 | nowPressing << 46 | entityTick << 47;
+    }
+
+    /**
+     * Appends a state to the search tree.
+     *
+     * @param buffer Buffer holding the state
+     * @param offset Index of the first value
+     * @param parent Index of the parent node, -1 for the root
+     * @param input Input that led from the parent to this state
+     */
+    private void addNode(double[] buffer, int offset, int parent, int input) {
+        if (nodeCount == parents.length) {
+            int capacity = parents.length * 2;
+            states = Arrays.copyOf(states, capacity * Map.STATE_SIZE);
+            parents = Arrays.copyOf(parents, capacity);
+            inputs = Arrays.copyOf(inputs, capacity);
+        }
+        System.arraycopy(buffer, offset, states, nodeCount * Map.STATE_SIZE, Map.STATE_SIZE);
+        parents[nodeCount] = parent;
+        inputs[nodeCount] = (byte) input;
+        nodeCount++;
+    }
+
+    /**
+     * Walks back from the goal to the root and returns the inputs in playing order.
+     *
+     * @param node Node the last input was applied to
+     * @param lastInput Input that reached the exit
+     * @param length Number of ticks in the path
+     * @return The input of every tick
+     */
+    private int[] buildPath(int node, int lastInput, int length) {
+        int[] path = new int[length];
+        path[length - 1] = lastInput;
+        for (int i = length - 2; i >= 0; i--) {
+            path[i] = inputs[node];
+            node = parents[node];
+        }
+        return path;
+    }
+
+    /**
+     * Children produced by one fork-join leaf.
+     */
+    private static class Chunk {
+        private double[] states = new double[CHUNK * Map.STATE_SIZE];
+        private long[] keys = new long[CHUNK];
+        private int[] parents = new int[CHUNK];
+        private byte[] inputs = new byte[CHUNK];
+        private int count = 0;
+        private int goalParent = -1;
+        private int goalInput = 0;
+
+        /**
+         * Stores the current state of the map as a child.
+         *
+         * @param map The map after the step
+         * @param parent The expanded node
+         * @param input The input applied to it
+         * @param timed Whether the entity tick is part of the key
+         */
+        private void add(Map map, int parent, int input, boolean timed) {
+            if (count == parents.length) {
+                int capacity = parents.length * 2;
+                states = Arrays.copyOf(states, capacity * Map.STATE_SIZE);
+                keys = Arrays.copyOf(keys, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                inputs = Arrays.copyOf(inputs, capacity);
+            }
+            map.saveState(states, count * Map.STATE_SIZE);
+            keys[count] = quantize(states, count * Map.STATE_SIZE, timed);
+            parents[count] = parent;
+            inputs[count] = (byte) input;
+            count++;
+        }
+    }
+
+    /**
+     * Splits a frontier into chunks and expands them in parallel.
+     */
+    private class ExpandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Chunk[] chunks;
+        private final int fromChunk;
+        private final int toChunk;
+        private final int levelStart;
+        private final int levelEnd;
+
+        /**
+         * @param chunks Receives one result per chunk
+         * @param fromChunk First chunk of this task
+         * @param toChunk One past the last chunk of this task
+         * @param levelStart First node of the frontier
+         * @param levelEnd One past the last node of the frontier
+         */
+        private ExpandTask(Chunk[] chunks, int fromChunk, int toChunk, int levelStart, int levelEnd) {
+            this.chunks = chunks;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.levelStart = levelStart;
+            this.levelEnd = levelEnd;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                Chunk chunk = new Chunk();
+                int from = levelStart + fromChunk * CHUNK;
+                expand(chunk, from, Math.min(levelEnd, from + CHUNK));
+                // Children already visited in earlier levels are dropped before the merge
+                int kept = 0;
+                for (int i = 0; i < chunk.count; i++) {
+                    if (!visited.contains(chunk.keys[i])) {
+                        System.arraycopy(chunk.states, i * Map.STATE_SIZE, chunk.states,
+                                kept * Map.STATE_SIZE, Map.STATE_SIZE);
+                        chunk.keys[kept] = chunk.keys[i];
+                        chunk.parents[kept] = chunk.parents[i];
+                        chunk.inputs[kept] = chunk.inputs[i];
+                        kept++;
+                    }
+                }
+                chunk.count = kept;
+                chunks[fromChunk] = chunk;
+                return;
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new ExpandTask(chunks, fromChunk, middle, levelStart, levelEnd),
+                    new ExpandTask(chunks, middle, toChunk, levelStart, levelEnd));
+        }
+    }
+
+    /**
+     * Writes the routes of all stages as one recording of a complete run.
+     *
+     * @param paths The route of every stage, in playing order
+     * @param stages The stages of the game
+     * @param out Stream receiving the recording, closed afterwards
+     * @throws IOException If the header cannot be written
+     */
+    public static void writeRecording(int[][] paths, ArrayList<Stage> stages, OutputStream out) throws IOException {
+        InputRecorder recorder = new InputRecorder(out, stages, Game.TICKS_PER_SECOND);
+        for (int i = 0; i < paths.length; i++) {
+            for (int input : paths[i]) {
+                recorder.record(input);
+            }
+            // The stage banner ignores input until the next stage starts
+            if (i + 1 < paths.length) {
+                for (int t = 0; t < Game.BANNER_TICKS; t++) {
+                    recorder.record(0);
+                }
+            }
+        }
+        recorder.close();
+    }
+
+    /**
+     * Solves every stage, prints the optimal tick counts and writes the full run as a recording.
+     *
+     * @param args Optional path of the recording to write, solution.olr by default
+     * @throws IOException If the recording cannot be written or read back
+     */
+    public static void main(String[] args) throws IOException {
+        String output = args.length > 0 ? args[0] : "solution.olr";
+        ArrayList<Stage> stages = DevinIsler.createStages();
+        Level level = Level.getDefault();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        int[][] paths = new int[stages.size()][];
+        int totalTicks = 0;
+        for (int i = 0; i < stages.size(); i++) {
+            long start = System.nanoTime();
+            Solver solver = new Solver(stages.get(i), level, pool);
+            int[] path = solver.solve();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            if (path == null) {
+                System.out.printf("Stage %d: no route found (%d states, %.2f s)%n",
+                        i + 1, solver.getVisitedCount(), seconds);
+                System.exit(1);
+            }
+            System.out.printf("Stage %d: %d ticks (%.2f s of play), %d states, %.2f s%n", i + 1, path.length,
+                    (double) path.length / Game.TICKS_PER_SECOND, solver.getVisitedCount(), seconds);
+            paths[i] = path;
+            totalTicks += path.length;
+        }
+        writeRecording(paths, stages, new FileOutputStream(output));
+
+        Game game = Replay.open(output).run();
+        System.out.printf("Total: %d ticks. Replay of %s ends %s with %d deaths%n",
+                totalTicks, output, game.getState(), game.getDeathCount());
+    }
+}
@@ -0,0 +1,127 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * A decoded image that is already scaled and rotated to the size it is drawn at.
+ *
+ * Sprites are handed out by SpriteCache, so the transform runs once when the
+ * sprite is created instead of on every draw call. A renderer that shows the
+ * world larger than its native size asks for the sprite at that scale once
+ * per resize; sprites that know their source are rendered again from it,
+ * the others are resampled from the prepared image.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.function.DoubleFunction;
+
+/**
+ * Ready-to-draw image variant.
+ */
+public class Sprite {
+    private final BufferedImage image;
+    private final DoubleFunction<BufferedImage> source;  // Renders the sprite at a scale, may be null
+    private String file;
+
+    /**
+     * Wraps an image that already has its final size and rotation.
+     *
+     * @param image The prepared image
+     */
+    public Sprite(BufferedImage image) {
+        this(image, null);
+    }
+
+    /**
+     * Wraps a prepared image along with a way to render it again at another scale.
+     *
+     * @param image The prepared image
+     * @param source Renders the image at a scale, or null to resample the prepared image
+     */
+    public Sprite(BufferedImage image, DoubleFunction<BufferedImage> source) {
+        this.image = image;
+        this.source = source;
+    }
+
+    /**
+     * @return The prepared image
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * @return The width of the image in pixels
+     */
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    /**
+     * @return The height of the image in pixels
+     */
+    public int getHeight() {
+        return image.getHeight();
+    }
+
+    /**
+     * Returns the image at the given scale of its native size.
+     *
+     * @param scale Pixels per world unit
+     * @return The prepared image at scale 1, otherwise a new image
+     */
+    public BufferedImage render(double scale) {
+        if (scale == 1) {
+            return image;
+        }
+        if (source != null) {
+            return source.apply(scale);
+        }
+        BufferedImage scaled = new BufferedImage(Math.max(1, (int) Math.round(image.getWidth() * scale)),
+                Math.max(1, (int) Math.round(image.getHeight() * scale)), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.drawImage(image, 0, 0, scaled.getWidth(), scaled.getHeight(), null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    /**
+     * Draws the sprite centered at the given position at its native size.
+     *
+     * @param renderer Target of the frame
+     * @param x The x-coordinate of the center
+     * @param y The y-coordinate of the center
+     */
+    public void draw(Renderer renderer, double x, double y) {
+        renderer.picture(x, y, this);
+    }
+
+    /**
+     * Returns a file holding the prepared image, writing it on first use.
+     * StdDraw only draws images by file name, and caches them by that name,
+     * so StdDrawRenderer draws sprites from this file.
+     *
+     * @return Path of the image file
+     */
+    public String getFile() {
+        if (file == null) {
+            try {
+                File temp = File.createTempFile("onlylevel-sprite", ".png");
+                temp.deleteOnExit();
+                ImageIO.write(image, "png", temp);
+                file = temp.getAbsolutePath();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write sprite", e);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,167 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Decodes every image once and keeps its scaled and rotated variants.
+ *
+ * Drawing code asks for a sprite by file, size, angle and optionally opacity. The first request
+ * decodes the file (if needed) and renders the variant, every later request
+ * returns the same prepared sprite.
+ *
+ * preload() packs the images of a directory into a TextureAtlas on a
+ * background thread, started before the window opens so decoding overlaps
+ * with it. From then on images are cut from the atlas instead of being read
+ * from disk; only files outside the atlas are still decoded on their own.
+ * If packing fails the game falls back to decoding every file itself.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import javax.imageio.ImageIO;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Registry of decoded images and their prepared variants.
+ */
+public class SpriteCache {
+    private static final HashMap<String, BufferedImage> decoded = new HashMap<>();
+    private static final HashMap<String, Sprite> variants = new HashMap<>();
+    private static FutureTask<TextureAtlas> atlas;  // Null until preload() is called
+
+    /**
+     * Starts packing every image of a directory into an atlas on a background thread.
+     *
+     * @param directory Directory holding the images
+     */
+    public static void preload(String directory) {
+        atlas = new FutureTask<>(() -> TextureAtlas.pack(new File(directory)));
+        Thread loader = new Thread(atlas, "asset-preload");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Returns the preloaded atlas, waiting for the loader if it is still packing.
+     *
+     * @return The atlas, or null if nothing was preloaded or packing failed
+     */
+    private static TextureAtlas getAtlas() {
+        if (atlas == null) {
+            return null;
+        }
+        try {
+            return atlas.get();
+        } catch (ExecutionException e) {
+            System.err.println("Asset preload failed, loading images one by one: " + e.getCause().getMessage());
+            atlas = null;
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Returns the variant of an image scaled to width x height and rotated by angle,
+     * creating it on first use. Quarter-turn variants swap their width and height.
+     *
+     * @param file Path of the image file
+     * @param width Width of the image before rotation
+     * @param height Height of the image before rotation
+     * @param angle Counterclockwise rotation in degrees
+     * @return The prepared sprite
+     */
+    public static Sprite get(String file, double width, double height, double angle) {
+        return get(file, width, height, angle, 1.0);
+    }
+
+    /**
+     * Returns a variant like get(file, width, height, angle) drawn with the given opacity.
+     *
+     * @param file Path of the image file
+     * @param width Width of the image before rotation
+     * @param height Height of the image before rotation
+     * @param angle Counterclockwise rotation in degrees
+     * @param opacity Opacity from 0 to 1
+     * @return The prepared sprite
+     */
+    public static Sprite get(String file, double width, double height, double angle, double opacity) {
+        String key = file + "@" + width + "x" + height + "r" + angle + "a" + opacity;
+        Sprite sprite = variants.get(key);
+        if (sprite == null) {
+            BufferedImage source = decode(file);
+            sprite = new Sprite(render(source, width, height, angle, opacity),
+                    scale -> render(source, width * scale, height * scale, angle, opacity));
+            variants.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    /**
+     * Returns the decoded image of a file, from the atlas when it holds the file,
+     * otherwise reading it on first use.
+     *
+     * @param file Path of the image file
+     * @return The decoded image
+     */
+    private static BufferedImage decode(String file) {
+        BufferedImage image = decoded.get(file);
+        TextureAtlas packed = image == null ? getAtlas() : null;
+        if (packed != null && packed.contains(file)) {
+            image = packed.getRegion(file);
+            decoded.put(file, image);
+        } else if (image == null) {
+            try {
+                image = ImageIO.read(new File(file));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read " + file, e);
+            }
+            if (image == null) {
+                throw new IllegalStateException("Unsupported image format: " + file);
+            }
+            decoded.put(file, image);
+        }
+        return image;
+    }
+
+    /**
+     * Scales and rotates an image the same way StdDraw.picture does, into a new image
+     * just large enough to hold the result.
+     *
+     * @param source The decoded image
+     * @param width Width of the image before rotation
+     * @param height Height of the image before rotation
+     * @param angle Counterclockwise rotation in degrees
+     * @param opacity Opacity from 0 to 1
+     * @return The prepared image
+     */
+    private static BufferedImage render(BufferedImage source, double width, double height, double angle,
+                                        double opacity) {
+        double radians = Math.toRadians(angle);
+        double cos = Math.abs(Math.cos(radians));
+        double sin = Math.abs(Math.sin(radians));
+        int outWidth = Math.max(1, (int) Math.round(width * cos + height * sin));
+        int outHeight = Math.max(1, (int) Math.round(width * sin + height * cos));
+
+        BufferedImage image = new BufferedImage(outWidth, outHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
+        graphics.rotate(-radians, outWidth / 2.0, outHeight / 2.0);
+        graphics.drawImage(source, (int) Math.round((outWidth - width) / 2), (int) Math.round((outHeight - height) / 2),
+                (int) Math.round(width), (int) Math.round(height), null);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -5,31 +5,48 @@
  * Represents a game stage with unique movement mechanics and visuals.
  *
  * A stage defines gravity, player velocity, control keys, clues, and help messages.
- * Each stage may alter the game rules (e.g., key reversals or auto-jumping).
+ * Each stage may alter the game rules (e.g., key reversals or auto-jumping)
+ * through a list of StageRule modifiers, resolved once when the stage is built.
  *
  * @author Devin Isler
  * @version 1.0
  */
 
 import java.awt.Color;
+import java.awt.event.KeyEvent;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
  * Represents a stage in the game with specific properties and behaviors.
  */
 public class Stage {
+    // Base values of every stage, changed through rules
+    public static final double DEFAULT_GRAVITY = -0.45;
+    public static final double DEFAULT_VELOCITY_X = 3.65;
+    public static final double DEFAULT_VELOCITY_Y = 10;
+
     private final Random randomGenerator = new Random();
     private final int stageNumber;
-    private final double gravity;
-    private final double velocityX;
-    private final double velocityY;
-    private final int rightCode;
-    private final int leftCode;
-    private final int upCode;
+    private final StageRule[] ruleList;
+    private final StageRules rules;
     private final String clue;
     private final String help;
     private final Color color;
 
+    /**
+     * Constructs a new Stage with the default physics and the arrow keys, changed by the given rules.
+     *
+     * @param stageNumber The stage identifier number
+     * @param clue The clue text for this stage
+     * @param help The help text for this stage
+     * @param rules Rules applied in order on top of the defaults
+     */
+    public Stage(int stageNumber, String clue, String help, StageRule... rules) {
+        this(DEFAULT_GRAVITY, DEFAULT_VELOCITY_X, DEFAULT_VELOCITY_Y, stageNumber,
+                KeyEvent.VK_RIGHT, KeyEvent.VK_LEFT, KeyEvent.VK_UP, clue, help, rules);
+    }
+
     /**
      * Constructs a new Stage with the specified parameters.
      *
@@ -42,21 +59,60 @@ public class Stage {
      * @param upCode The key code for jumping/up movement
      * @param clue The clue text for this stage
      * @param help The help text for this stage
+     * @param rules Rules applied in order on top of these values
      */
     public Stage(double gravity, double velocityX, double velocityY, int stageNumber,
-                 int rightCode, int leftCode, int upCode, String clue, String help) {
-        this.gravity = gravity;
-        this.velocityX = velocityX;
-        this.velocityY = velocityY;
+                 int rightCode, int leftCode, int upCode, String clue, String help, StageRule... rules) {
+        this(prepend(rules, StageRule.physics(gravity, velocityX, velocityY),
+                StageRule.remapKeys(rightCode, leftCode, upCode)), stageNumber, clue, help);
+    }
+
+    /**
+     * Constructs a stage from its complete rule list and resolves the rules.
+     *
+     * @param ruleList Every rule of the stage, starting with its physics and keys
+     * @param stageNumber The stage identifier number
+     * @param clue The clue text for this stage
+     * @param help The help text for this stage
+     */
+    private Stage(StageRule[] ruleList, int stageNumber, String clue, String help) {
         this.stageNumber = stageNumber;
-        this.rightCode = rightCode;
-        this.leftCode = leftCode;
-        this.upCode = upCode;
+        this.ruleList = ruleList;
+        this.rules = new StageRules();
+        this.rules.resolve(ruleList);
         this.clue = clue;
         this.help = help;
         this.color = generateColor();
     }
 
+    /**
+     * Puts the base rules in front of the given ones.
+     *
+     * @param rules The rules of the stage
+     * @param physics Rule setting the base physics
+     * @param keys Rule setting the base keys
+     * @return The combined list
+     */
+    private static StageRule[] prepend(StageRule[] rules, StageRule physics, StageRule keys) {
+        StageRule[] all = new StageRule[rules.length + 2];
+        all[0] = physics;
+        all[1] = keys;
+        System.arraycopy(rules, 0, all, 2, rules.length);
+        return all;
+    }
+
+    /**
+     * Creates a copy of this stage with one more rule applied last.
+     *
+     * @param rule The extra rule
+     * @return The new stage
+     */
+    public Stage withRule(StageRule rule) {
+        StageRule[] all = Arrays.copyOf(ruleList, ruleList.length + 1);
+        all[ruleList.length] = rule;
+        return new Stage(all, stageNumber, clue, help);
+    }
+
     /**
      * @return The stage number
      */
@@ -64,32 +120,39 @@ public class Stage {
         return stageNumber;
     }
 
+    /**
+     * @return The resolved rules of this stage
+     */
+    public StageRules getRules() {
+        return rules;
+    }
+
     /**
      * @return The gravity value for this stage
      */
     public double getGravity() {
-        return gravity;
+        return rules.getGravity();
     }
 
     /**
      * @return The horizontal velocity for this stage
      */
     public double getVelocityX() {
-        return velocityX;
+        return rules.getVelocityX();
     }
 
     /**
      * @return The vertical velocity for this stage
      */
     public double getVelocityY() {
-        return velocityY;
+        return rules.getVelocityY();
     }
 
     /**
      * @return An array containing right, left, and up key codes
      */
     public int[] getKeyCodes() {
-        return new int[]{rightCode, leftCode, upCode};
+        return new int[]{rules.getRightCode(), rules.getLeftCode(), rules.getUpCode()};
     }
 
     /**
@@ -120,18 +183,10 @@ public class Stage {
     }
 
     /**
-     * Determines how many button presses are needed based on the stage number.
-     *
-     * @return The number of button presses required
+     * @return The number of button presses required to open the door
      */
     public int getNeededPress() {
-        if (stageNumber == 1 || stageNumber == 2 || stageNumber == 0) {
-            return 1;
-        }
-        if (stageNumber == 3) {
-            return 5;
-        }
-        return 0;
+        return rules.getNeededPress();
     }
 
     /**
@@ -140,4 +195,4 @@ public class Stage {
     public Color getColor() {
         return color;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * A modifier that changes how a stage plays.
+ *
+ * A Stage is built from a list of rules, applied in order to the stage's
+ * StageRules when the stage is created. Later rules override earlier ones.
+ * New stage variants are new rule combinations, Map does not change.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+/**
+ * Stage modifier, with factories for the built-in rules.
+ */
+public interface StageRule {
+    /**
+     * Applies this rule to the settings of a stage being built.
+     *
+     * @param rules The settings, not yet resolved
+     */
+    void apply(StageRules rules);
+
+    /**
+     * Maps the movement keys to other key codes.
+     *
+     * @param rightCode The key code for right movement
+     * @param leftCode The key code for left movement
+     * @param upCode The key code for jumping, or a negative value for no jump key
+     * @return The rule
+     */
+    static StageRule remapKeys(int rightCode, int leftCode, int upCode) {
+        return rules -> rules.setKeyCodes(rightCode, leftCode, upCode);
+    }
+
+    /**
+     * Makes the player jump again every time it lands.
+     *
+     * @return The rule
+     */
+    static StageRule autoBounce() {
+        return rules -> rules.setAutoBounce(true);
+    }
+
+    /**
+     * Sets how many times the button must be pressed to open the door.
+     *
+     * @param count The number of presses
+     * @return The rule
+     */
+    static StageRule pressCount(int count) {
+        return rules -> rules.setNeededPress(count);
+    }
+
+    /**
+     * Shows the player facing away from the direction it moves.
+     *
+     * @return The rule
+     */
+    static StageRule flipSprite() {
+        return rules -> rules.setFlipSprite(true);
+    }
+
+    /**
+     * Overrides gravity and the movement velocities.
+     *
+     * @param gravity The gravity value
+     * @param velocityX The horizontal velocity
+     * @param velocityY The jump velocity
+     * @return The rule
+     */
+    static StageRule physics(double gravity, double velocityX, double velocityY) {
+        return rules -> rules.setPhysics(gravity, velocityX, velocityY);
+    }
+}
@@ -0,0 +1,194 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * The resolved behaviour of a stage.
+ *
+ * Receives every StageRule of a stage, starting with its base physics and
+ * keys, then is resolved once into plain values that Map reads on every
+ * tick. Behaviour that used to depend on the stage number becomes data: the
+ * velocity after landing is the jump velocity on bouncing stages and gravity
+ * otherwise, the sprite shown for each direction is swapped on flipped stages.
+ * The physics path therefore never branches on the kind of stage.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+/**
+ * Settings of a stage, mutable while rules apply and read-only once resolved.
+ */
+public class StageRules {
+    // Set by the physics and key rules every stage starts with
+    private double gravity;
+    private double velocityX;
+    private double velocityY;
+    private int rightCode = -1;
+    private int leftCode = -1;
+    private int upCode = -1;
+    private boolean autoBounce = false;
+    private int neededPress = 1;
+    private boolean flipSprite = false;
+
+    // Derived once the rules are applied
+    private boolean resolved = false;
+    private double landingVelocity;
+    private int rightFacing;
+    private int leftFacing;
+
+    /**
+     * Applies the rules in order and computes the per-tick values.
+     *
+     * @param rules The rules of the stage
+     */
+    public void resolve(StageRule[] rules) {
+        for (StageRule rule : rules) {
+            rule.apply(this);
+        }
+        landingVelocity = autoBounce ? velocityY : gravity;
+        rightFacing = flipSprite ? Player.FACING_LEFT : Player.FACING_RIGHT;
+        leftFacing = flipSprite ? Player.FACING_RIGHT : Player.FACING_LEFT;
+        resolved = true;
+    }
+
+    /**
+     * Fails if the settings are already in use.
+     */
+    private void checkNotResolved() {
+        if (resolved) {
+            throw new IllegalStateException("Stage rules are already resolved");
+        }
+    }
+
+    /**
+     * @param gravity The gravity value
+     * @param velocityX The horizontal velocity
+     * @param velocityY The jump velocity
+     */
+    public void setPhysics(double gravity, double velocityX, double velocityY) {
+        checkNotResolved();
+        this.gravity = gravity;
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+    }
+
+    /**
+     * @param rightCode The key code for right movement
+     * @param leftCode The key code for left movement
+     * @param upCode The key code for jumping, or a negative value for no jump key
+     */
+    public void setKeyCodes(int rightCode, int leftCode, int upCode) {
+        checkNotResolved();
+        this.rightCode = rightCode;
+        this.leftCode = leftCode;
+        this.upCode = upCode;
+    }
+
+    /**
+     * @param autoBounce Whether the player jumps again on landing
+     */
+    public void setAutoBounce(boolean autoBounce) {
+        checkNotResolved();
+        this.autoBounce = autoBounce;
+    }
+
+    /**
+     * @param neededPress Button presses needed to open the door
+     */
+    public void setNeededPress(int neededPress) {
+        checkNotResolved();
+        this.neededPress = neededPress;
+    }
+
+    /**
+     * @param flipSprite Whether the player faces away from its movement
+     */
+    public void setFlipSprite(boolean flipSprite) {
+        checkNotResolved();
+        this.flipSprite = flipSprite;
+    }
+
+    /**
+     * @return The gravity value
+     */
+    public double getGravity() {
+        return gravity;
+    }
+
+    /**
+     * @return The horizontal velocity
+     */
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    /**
+     * @return The jump velocity
+     */
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    /**
+     * @return The key code for right movement
+     */
+    public int getRightCode() {
+        return rightCode;
+    }
+
+    /**
+     * @return The key code for left movement
+     */
+    public int getLeftCode() {
+        return leftCode;
+    }
+
+    /**
+     * @return The key code for jumping, negative if the stage has no jump key
+     */
+    public int getUpCode() {
+        return upCode;
+    }
+
+    /**
+     * @return Whether the player jumps again on landing
+     */
+    public boolean isAutoBounce() {
+        return autoBounce;
+    }
+
+    /**
+     * @return Button presses needed to open the door
+     */
+    public int getNeededPress() {
+        return neededPress;
+    }
+
+    /**
+     * @return Whether the player faces away from its movement
+     */
+    public boolean isFlipSprite() {
+        return flipSprite;
+    }
+
+    /**
+     * @return Vertical velocity set when the player lands
+     */
+    public double getLandingVelocity() {
+        return landingVelocity;
+    }
+
+    /**
+     * @return Facing shown while moving right
+     */
+    public int getRightFacing() {
+        return rightFacing;
+    }
+
+    /**
+     * @return Facing shown while moving left
+     */
+    public int getLeftFacing() {
+        return leftFacing;
+    }
+}
@@ -0,0 +1,120 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Renderer that draws through StdDraw.
+ *
+ * StdDraw draws into its offscreen image and copies it to the window on
+ * show(), paced by the caller. Sprites are drawn from the file each Sprite
+ * writes once, since StdDraw loads images by name.
+ *
+ * This backend is not allocation-free. StdDraw only takes strings, so every
+ * HUD text drawn from a TextBuffer is copied into a new String, and StdDraw
+ * allocates inside its own drawing calls too. The frame code of the game
+ * allocates nothing, which AllocationCheck verifies; the Java2D renderer
+ * draws HUD text straight from the buffer instead.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import javax.swing.ImageIcon;
+import java.awt.Color;
+import java.awt.Font;
+
+/**
+ * StdDraw backend of Renderer.
+ */
+public class StdDrawRenderer implements Renderer {
+    /**
+     * Opens the StdDraw window with a world of the given size and double buffering on.
+     *
+     * @param width Width of the window and the world
+     * @param height Height of the window and the world
+     * @return The renderer
+     */
+    public static StdDrawRenderer open(int width, int height) {
+        StdDraw.setCanvasSize(width, height);
+        StdDraw.setXscale(0, width);
+        StdDraw.setYscale(0, height);
+        StdDraw.enableDoubleBuffering();
+        return new StdDrawRenderer();
+    }
+
+    @Override
+    public void clear() {
+        StdDraw.clear();
+    }
+
+    @Override
+    public void show() {
+        StdDraw.show();
+    }
+
+    @Override
+    public void setPenColor(Color color) {
+        StdDraw.setPenColor(color);
+    }
+
+    @Override
+    public void setFont(Font font) {
+        StdDraw.setFont(font);
+    }
+
+    @Override
+    public void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
+        StdDraw.filledRectangle(x, y, halfWidth, halfHeight);
+    }
+
+    @Override
+    public void rectangle(double x, double y, double halfWidth, double halfHeight) {
+        StdDraw.rectangle(x, y, halfWidth, halfHeight);
+    }
+
+    @Override
+    public void filledSquare(double x, double y, double halfLength) {
+        StdDraw.filledSquare(x, y, halfLength);
+    }
+
+    @Override
+    public void text(double x, double y, String text) {
+        StdDraw.text(x, y, text);
+    }
+
+    @Override
+    public void textLeft(double x, double y, String text) {
+        StdDraw.textLeft(x, y, text);
+    }
+
+    /**
+     * Draws the text of a buffer. StdDraw only takes strings, so this copies the text into
+     * a new String on every call.
+     */
+    @Override
+    public void text(double x, double y, TextBuffer text) {
+        StdDraw.text(x, y, text.toString());
+    }
+
+    /**
+     * Draws the text of a buffer. StdDraw only takes strings, so this copies the text into
+     * a new String on every call.
+     */
+    @Override
+    public void textLeft(double x, double y, TextBuffer text) {
+        StdDraw.textLeft(x, y, text.toString());
+    }
+
+    @Override
+    public void picture(double x, double y, Sprite sprite) {
+        StdDraw.picture(x, y, sprite.getFile());
+    }
+
+    /**
+     * Writes the file of the sprite and loads it the way StdDraw.picture does. The toolkit
+     * keeps images by file name, so the first picture() finds it decoded.
+     */
+    @Override
+    public void prepare(Sprite sprite) {
+        new ImageIcon(sprite.getFile());
+    }
+}
@@ -0,0 +1,165 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Reusable characters for text that changes every frame.
+ *
+ * Formatting the timer or a counter into a new String allocates on every
+ * frame. A TextBuffer is filled again in place instead: numbers are written
+ * digit by digit into its char array, and renderers draw the characters
+ * straight from the array. The buffer grows only when a text is longer than
+ * any before it, which stops happening after the first frames.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import java.util.Arrays;
+
+/**
+ * Growable char array that numbers and strings are appended to without allocating.
+ */
+public class TextBuffer {
+    private char[] chars;
+    private int length = 0;
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param capacity Number of characters held before the buffer grows
+     */
+    public TextBuffer(int capacity) {
+        this.chars = new char[Math.max(1, capacity)];
+    }
+
+    /**
+     * Empties the buffer, keeping its array.
+     *
+     * @return This buffer
+     */
+    public TextBuffer clear() {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Appends the characters of a string.
+     *
+     * @param text The string
+     * @return This buffer
+     */
+    public TextBuffer append(String text) {
+        ensureCapacity(length + text.length());
+        text.getChars(0, text.length(), chars, length);
+        length += text.length();
+        return this;
+    }
+
+    /**
+     * Appends one character.
+     *
+     * @param c The character
+     * @return This buffer
+     */
+    public TextBuffer append(char c) {
+        ensureCapacity(length + 1);
+        chars[length++] = c;
+        return this;
+    }
+
+    /**
+     * Appends a number in decimal.
+     *
+     * @param value The number
+     * @return This buffer
+     */
+    public TextBuffer append(long value) {
+        return append(value, 0, ' ');
+    }
+
+    /**
+     * Appends a number in decimal, right-aligned to at least the given width like the
+     * %Nd format with ' ' as fill, or padded with zeros after the sign like %0Nd with '0'.
+     *
+     * @param value The number
+     * @param width Smallest number of characters written, sign included
+     * @param fill ' ' or '0'
+     * @return This buffer
+     */
+    public TextBuffer append(long value, int width, char fill) {
+        // Work with the negative value, which also holds Long.MIN_VALUE
+        long rest = value < 0 ? value : -value;
+        int sign = value < 0 ? 1 : 0;
+        int digits = 1;
+        for (long bound = rest / 10; bound != 0; bound /= 10) {
+            digits++;
+        }
+        if (fill == '0') {
+            if (sign == 1) {
+                append('-');
+            }
+            digits = Math.max(digits, width - sign);
+        } else {
+            padTo(length + width - sign - digits);
+            if (sign == 1) {
+                append('-');
+            }
+        }
+        ensureCapacity(length + digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            chars[i] = (char) ('0' - rest % 10);
+            rest /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Appends spaces until the text reaches the given length, like the %-Ns format
+     * does after a string.
+     *
+     * @param column Length of the text afterwards, nothing is appended if it is already longer
+     * @return This buffer
+     */
+    public TextBuffer padTo(int column) {
+        while (length < column) {
+            append(' ');
+        }
+        return this;
+    }
+
+    /**
+     * Grows the array to hold at least the given number of characters.
+     *
+     * @param capacity The needed number of characters
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+        }
+    }
+
+    /**
+     * @return The array holding the text in its first length() characters
+     */
+    public char[] getChars() {
+        return chars;
+    }
+
+    /**
+     * @return The number of characters of the text
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Copies the text into a new String, for callers outside the frame.
+     *
+     * @return The text
+     */
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,158 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * All images of the game packed into a single image.
+ *
+ * pack() decodes every PNG of a directory and places them on shelves: the
+ * images are sorted by height and laid out left to right in rows of a width
+ * close to the square root of their total area, with a transparent pixel
+ * between neighbours so scaling one never picks up another. Each source file
+ * becomes a sub-rectangle of the atlas, and getRegion() hands it out as a
+ * subimage that shares the pixels of the atlas instead of copying them.
+ *
+ * Packing reads and decodes files, so it is meant to run on a background
+ * thread. The finished atlas is only read, and can be handed to any thread.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+import javax.imageio.ImageIO;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Packed image of every sprite source with the region of each file.
+ */
+public class TextureAtlas {
+    private static final int PADDING = 1;
+
+    private final BufferedImage image;
+    private final HashMap<String, Rectangle> regions;
+
+    /**
+     * Wraps a packed image and the regions of its source files.
+     *
+     * @param image The packed image
+     * @param regions Region of each source file, keyed by normalized path
+     */
+    private TextureAtlas(BufferedImage image, HashMap<String, Rectangle> regions) {
+        this.image = image;
+        this.regions = regions;
+    }
+
+    /**
+     * Decodes every PNG file of a directory and packs them into one atlas.
+     *
+     * @param directory Directory holding the images
+     * @return The atlas
+     * @throws IOException If the directory or one of its images cannot be read
+     */
+    public static TextureAtlas pack(File directory) throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(".png"));
+        if (files == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        ArrayList<BufferedImage> images = new ArrayList<>();
+        ArrayList<String> keys = new ArrayList<>();
+        long area = 0;
+        int widest = 1;
+        for (File file : files) {
+            BufferedImage decoded = ImageIO.read(file);
+            if (decoded == null) {
+                throw new IOException("Unsupported image format: " + file);
+            }
+            images.add(decoded);
+            keys.add(key(file.getPath()));
+            area += (long) (decoded.getWidth() + PADDING) * (decoded.getHeight() + PADDING);
+            widest = Math.max(widest, decoded.getWidth() + PADDING);
+        }
+
+        // Tallest first, so every shelf is about as high as its images
+        Integer[] order = new Integer[images.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> images.get(b).getHeight() - images.get(a).getHeight());
+
+        int width = Math.max(widest, (int) Math.ceil(Math.sqrt(area)));
+        HashMap<String, Rectangle> regions = new HashMap<>();
+        int x = 0;
+        int y = 0;
+        int shelfHeight = 0;
+        for (int i : order) {
+            BufferedImage source = images.get(i);
+            if (x + source.getWidth() > width) {
+                x = 0;
+                y += shelfHeight;
+                shelfHeight = 0;
+            }
+            regions.put(keys.get(i), new Rectangle(x, y, source.getWidth(), source.getHeight()));
+            x += source.getWidth() + PADDING;
+            shelfHeight = Math.max(shelfHeight, source.getHeight() + PADDING);
+        }
+
+        BufferedImage atlas = new BufferedImage(width, Math.max(1, y + shelfHeight), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = atlas.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        for (int i = 0; i < images.size(); i++) {
+            Rectangle region = regions.get(keys.get(i));
+            graphics.drawImage(images.get(i), region.x, region.y, null);
+        }
+        graphics.dispose();
+        return new TextureAtlas(atlas, regions);
+    }
+
+    /**
+     * Returns the key of a file, the same for every way of writing its path.
+     *
+     * @param file Path of the file
+     * @return The absolute, normalized path
+     */
+    private static String key(String file) {
+        return new File(file).toPath().toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Returns whether an image file was packed into the atlas.
+     *
+     * @param file Path of the image file
+     * @return true if the atlas holds the image
+     */
+    public boolean contains(String file) {
+        return regions.containsKey(key(file));
+    }
+
+    /**
+     * Returns the image of a file as a subimage of the atlas.
+     *
+     * @param file Path of the image file, which must be in the atlas
+     * @return The subimage, sharing the pixels of the atlas
+     */
+    public BufferedImage getRegion(String file) {
+        Rectangle region = regions.get(key(file));
+        return image.getSubimage(region.x, region.y, region.width, region.height);
+    }
+
+    /**
+     * @return The packed image
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * @return The number of images in the atlas
+     */
+    public int size() {
+        return regions.size();
+    }
+}
@@ -0,0 +1,138 @@
+// name surname: Devin Isler
+// student ID: 2023400063
+
+/**
+ * Maps the fixed world of the game onto a screen area of any size.
+ *
+ * Map, Game and the levels keep working in world units, 800 x 600 with y
+ * pointing up. The viewport scales that world uniformly to the largest size
+ * that fits the screen area and centers it, leaving bars on the two sides
+ * that do not match the aspect ratio. Screen coordinates have y pointing
+ * down, like AWT. Resizing only recomputes a scale and two offsets, so the
+ * transforms themselves are a multiply and an add.
+ *
+ * @author Devin Isler
+ * @version 1.0
+ */
+
+/**
+ * Uniform world-to-screen transform with letterboxing.
+ */
+public class Viewport {
+    private final double worldWidth;
+    private final double worldHeight;
+    private int screenWidth = -1;
+    private int screenHeight = -1;
+    private double scale = 1;
+    private double offsetX = 0;
+    private double offsetY = 0;
+
+    /**
+     * Constructs a viewport for a world of the given size, shown at its native size until resized.
+     *
+     * @param worldWidth Width of the world
+     * @param worldHeight Height of the world
+     */
+    public Viewport(double worldWidth, double worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    /**
+     * Fits the world into a screen area of the given size.
+     *
+     * @param width Width of the screen area
+     * @param height Height of the screen area
+     * @return Whether the size differs from the previous one
+     */
+    public boolean resize(int width, int height) {
+        if (width == screenWidth && height == screenHeight) {
+            return false;
+        }
+        screenWidth = width;
+        screenHeight = height;
+        scale = Math.max(Double.MIN_NORMAL, Math.min(width / worldWidth, height / worldHeight));
+        // Whole-pixel offsets keep edges that are whole pixels in the world sharp on screen
+        offsetX = Math.floor((width - worldWidth * scale) / 2);
+        offsetY = Math.floor((height - worldHeight * scale) / 2);
+        return true;
+    }
+
+    /**
+     * @param x World x-coordinate
+     * @return Screen x-coordinate
+     */
+    public double toScreenX(double x) {
+        return offsetX + x * scale;
+    }
+
+    /**
+     * @param y World y-coordinate
+     * @return Screen y-coordinate
+     */
+    public double toScreenY(double y) {
+        return offsetY + (worldHeight - y) * scale;
+    }
+
+    /**
+     * @param screenX Screen x-coordinate
+     * @return World x-coordinate
+     */
+    public double toWorldX(double screenX) {
+        return (screenX - offsetX) / scale;
+    }
+
+    /**
+     * @param screenY Screen y-coordinate
+     * @return World y-coordinate
+     */
+    public double toWorldY(double screenY) {
+        return worldHeight - (screenY - offsetY) / scale;
+    }
+
+    /**
+     * Returns whether a world point lies in the world rather than on the bars around it.
+     *
+     * @param x World x-coordinate
+     * @param y World y-coordinate
+     * @return true if the point is inside the world
+     */
+    public boolean contains(double x, double y) {
+        return x >= 0 && x <= worldWidth && y >= 0 && y <= worldHeight;
+    }
+
+    /**
+     * @return Screen units per world unit
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * @return Width of the world
+     */
+    public double getWorldWidth() {
+        return worldWidth;
+    }
+
+    /**
+     * @return Height of the world
+     */
+    public double getWorldHeight() {
+        return worldHeight;
+    }
+
+    /**
+     * @return Width of the screen area
+     */
+    public int getScreenWidth() {
+        return screenWidth;
+    }
+
+    /**
+     * @return Height of the screen area
+     */
+    public int getScreenHeight() {
+        return screenHeight;
+    }
+}